@@ -0,0 +1,96 @@
+package org.point85.uom.test.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.point85.uom.MeasurementSystem;
+import org.point85.uom.Quantity;
+import org.point85.uom.Unit;
+import org.point85.uom.UnitOfMeasure;
+import org.point85.uom.UnitType;
+
+/**
+ * Benchmarks for unit of measure arithmetic, reduction to base units,
+ * classification and simplification.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ArithmeticBenchmark {
+	private UnitOfMeasure newton;
+	private UnitOfMeasure metre;
+	private UnitOfMeasure second;
+	private UnitOfMeasure joule;
+	private Quantity torque;
+
+	@Setup
+	public void setUp() throws Exception {
+		MeasurementSystem sys = MeasurementSystem.getSystem();
+		newton = sys.getUOM(Unit.NEWTON);
+		metre = sys.getUOM(Unit.METRE);
+		second = sys.getUOM(Unit.SECOND);
+		joule = sys.getUOM(Unit.JOULE);
+
+		// an anonymous product with a named equivalent
+		torque = new Quantity(2d, newton).multiply(new Quantity(3d, metre));
+	}
+
+	// a product that is unclassified again before each classification
+	@State(Scope.Benchmark)
+	public static class Unclassified {
+		private UnitOfMeasure product;
+
+		@Setup
+		public void setUp() throws Exception {
+			MeasurementSystem sys = MeasurementSystem.getSystem();
+
+			// a product that classifies as energy
+			product = sys.createProductUOM(UnitType.UNCLASSIFIED, "newton metre", "Nm", "classify",
+					sys.getUOM(Unit.NEWTON), sys.getUOM(Unit.METRE));
+		}
+
+		@Setup(Level.Invocation)
+		public void unclassify() {
+			// classification sets the unit type
+			product.setUnitType(UnitType.UNCLASSIFIED);
+		}
+	}
+
+	@Benchmark
+	public UnitOfMeasure multiply() throws Exception {
+		return newton.multiply(metre);
+	}
+
+	@Benchmark
+	public UnitOfMeasure divide() throws Exception {
+		return metre.divide(second);
+	}
+
+	@Benchmark
+	public String getBaseSymbol() throws Exception {
+		return joule.getBaseSymbol();
+	}
+
+	@Benchmark
+	public UnitOfMeasure classify(Unclassified state) throws Exception {
+		return state.product.classify();
+	}
+
+	@Benchmark
+	public Quantity simplify() throws Exception {
+		return torque.simplify();
+	}
+}
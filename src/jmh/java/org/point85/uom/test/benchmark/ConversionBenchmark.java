@@ -0,0 +1,187 @@
+package org.point85.uom.test.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleUnaryOperator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.point85.uom.ConversionPlan;
+import org.point85.uom.MeasurementSystem;
+import org.point85.uom.Prefix;
+import org.point85.uom.Quantity;
+import org.point85.uom.Unit;
+import org.point85.uom.UnitOfMeasure;
+import org.point85.uom.UnitType;
+
+/**
+ * Benchmarks for {@link Quantity#convert(UnitOfMeasure)} when the conversion
+ * factor is already cached and when it has to be computed, for a converter
+ * function from {@link UnitOfMeasure#converterTo(UnitOfMeasure)}, specialized
+ * and general converter functions over an array of amounts, and for probing an
+ * incompatible conversion with and without an exception.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConversionBenchmark {
+	// pre-defined units
+	private Quantity metres;
+	private UnitOfMeasure foot;
+	private Quantity celsius;
+	private UnitOfMeasure fahrenheit;
+	private UnitOfMeasure kilogram;
+
+	// converter from Celsius to Fahrenheit
+	private DoubleUnaryOperator converter;
+	private double amount = 10.0d;
+
+	@Setup
+	public void setUp() throws Exception {
+		MeasurementSystem sys = MeasurementSystem.getSystem();
+
+		metres = new Quantity(10.0d, Unit.METRE);
+		foot = sys.getUOM(Unit.FOOT);
+
+		celsius = new Quantity(10.0d, Unit.CELSIUS);
+		fahrenheit = sys.getUOM(Unit.FAHRENHEIT);
+		kilogram = sys.getUOM(Unit.KILOGRAM);
+
+		converter = celsius.getUOM().converterTo(fahrenheit);
+
+		// prime the caches
+		metres.convert(foot);
+		celsius.convert(fahrenheit);
+	}
+
+	@State(Scope.Benchmark)
+	public static class Miss {
+		// custom units
+		private Quantity furlongs;
+		private UnitOfMeasure kilometre;
+
+		@Setup
+		public void setUp() throws Exception {
+			MeasurementSystem sys = MeasurementSystem.getSystem();
+			UnitOfMeasure furlong = sys.createScalarUOM(UnitType.LENGTH, "furlong", "fur", "furlong");
+			furlong.setConversion(660.0d, sys.getUOM(Unit.FOOT));
+			furlongs = new Quantity(10.0d, furlong);
+			kilometre = sys.getUOM(Prefix.KILO, Unit.METRE);
+		}
+
+		@Setup(Level.Invocation)
+		public void clearCache() {
+			// the custom unit's factors are cached in its own registry
+			furlongs.getUOM().clearCache();
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class Operators {
+		// kilometre to mile, a scale only
+		private DoubleUnaryOperator scale;
+		private DoubleUnaryOperator generalScale;
+
+		// Celsius to Kelvin, an offset only
+		private DoubleUnaryOperator shift;
+		private DoubleUnaryOperator generalShift;
+
+		private final double[] amounts = new double[1024];
+		private final double[] converted = new double[1024];
+
+		@Setup
+		public void setUp() throws Exception {
+			MeasurementSystem sys = MeasurementSystem.getSystem();
+
+			ConversionPlan scalePlan = sys.getUOM(Prefix.KILO, Unit.METRE).getConversionPlan(sys.getUOM(Unit.MILE));
+			scale = scalePlan.toOperator();
+			generalScale = multiplyAdd(scalePlan.getSlope(), scalePlan.getIntercept());
+
+			ConversionPlan shiftPlan = sys.getUOM(Unit.CELSIUS).getConversionPlan(sys.getUOM(Unit.KELVIN));
+			shift = shiftPlan.toOperator();
+			generalShift = multiplyAdd(shiftPlan.getSlope(), shiftPlan.getIntercept());
+
+			for (int i = 0; i < amounts.length; i++) {
+				amounts[i] = i;
+			}
+		}
+
+		// the unspecialized function
+		private static DoubleUnaryOperator multiplyAdd(double a, double b) {
+			return x -> x * a + b;
+		}
+
+		private double[] apply(DoubleUnaryOperator operator) {
+			for (int i = 0; i < amounts.length; i++) {
+				converted[i] = operator.applyAsDouble(amounts[i]);
+			}
+			return converted;
+		}
+	}
+
+	@Benchmark
+	public Quantity convertHit() throws Exception {
+		return metres.convert(foot);
+	}
+
+	@Benchmark
+	public Quantity convertOffsetHit() throws Exception {
+		return celsius.convert(fahrenheit);
+	}
+
+	@Benchmark
+	public Quantity convertMiss(Miss state) throws Exception {
+		return state.furlongs.convert(state.kilometre);
+	}
+
+	@Benchmark
+	public double convertWithConverter() {
+		return converter.applyAsDouble(amount);
+	}
+
+	@Benchmark
+	public double[] scaleWithOperator(Operators state) {
+		return state.apply(state.scale);
+	}
+
+	@Benchmark
+	public double[] scaleWithMultiplyAdd(Operators state) {
+		return state.apply(state.generalScale);
+	}
+
+	@Benchmark
+	public double[] shiftWithOperator(Operators state) {
+		return state.apply(state.shift);
+	}
+
+	@Benchmark
+	public double[] shiftWithMultiplyAdd(Operators state) {
+		return state.apply(state.generalShift);
+	}
+
+	@Benchmark
+	public boolean probeWithException() {
+		try {
+			metres.convert(kilogram);
+			return true;
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	@Benchmark
+	public boolean probeWithIsConvertible() throws Exception {
+		return metres.getUOM().isConvertibleTo(kilogram);
+	}
+}
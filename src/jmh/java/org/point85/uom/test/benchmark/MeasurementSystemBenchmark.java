@@ -0,0 +1,95 @@
+package org.point85.uom.test.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.point85.uom.MeasurementSystem;
+import org.point85.uom.Prefix;
+import org.point85.uom.Unit;
+import org.point85.uom.UnitOfMeasure;
+
+/**
+ * Benchmarks for unit of measure, unit expression and prefix lookups. A cold lookup creates the
+ * unit of measure after the measurement system's cache has been cleared.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MeasurementSystemBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class Warm {
+		private MeasurementSystem sys;
+
+		@Setup
+		public void setUp() throws Exception {
+			sys = MeasurementSystem.getSystem();
+			sys.getUOM(Unit.NEWTON);
+			sys.getUOM(Prefix.KILO, Unit.METRE);
+			sys.parseUOM("kg\u00B7m/s\u00B2");
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class Cold {
+		private MeasurementSystem sys;
+
+		@Setup(Level.Invocation)
+		public void setUp() {
+			sys = MeasurementSystem.getSystem();
+			sys.clearCache();
+		}
+	}
+
+	@Benchmark
+	public UnitOfMeasure getUOMWarm(Warm state) throws Exception {
+		return state.sys.getUOM(Unit.NEWTON);
+	}
+
+	@Benchmark
+	public UnitOfMeasure getUOMCold(Cold state) throws Exception {
+		return state.sys.getUOM(Unit.NEWTON);
+	}
+
+	@Benchmark
+	public UnitOfMeasure getUOMBySymbol(Warm state) throws Exception {
+		return state.sys.getUOM("N");
+	}
+
+	@Benchmark
+	public UnitOfMeasure getPrefixedUOM(Warm state) throws Exception {
+		return state.sys.getUOM(Prefix.KILO, Unit.METRE);
+	}
+
+	@Benchmark
+	public UnitOfMeasure parseExpression(Warm state) throws Exception {
+		return state.sys.parseUOM("kg\u00B7m/s\u00B2");
+	}
+
+	@Benchmark
+	public Prefix prefixFromName() {
+		return Prefix.fromName("micro");
+	}
+
+	@Benchmark
+	public Prefix prefixFromSymbol() {
+		return Prefix.fromSymbol("\u03BC");
+	}
+
+	@Benchmark
+	public Prefix prefixFromFactor() {
+		return Prefix.fromFactor(1.0E-06);
+	}
+}
@@ -0,0 +1,77 @@
+package org.point85.uom.test.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.point85.uom.MeasurementSystem;
+import org.point85.uom.Prefix;
+import org.point85.uom.Unit;
+import org.point85.uom.UnitOfMeasure;
+
+/**
+ * Benchmarks for the identity methods of a unit of measure that sit under every
+ * cache lookup. Run with -prof gc to see the allocation rate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UnitOfMeasureBenchmark {
+	private UnitOfMeasure metre;
+	private UnitOfMeasure kilometre;
+	private UnitOfMeasure otherKilometre;
+	private Map<UnitOfMeasure, Double> registry;
+
+	@Setup
+	public void setUp() throws Exception {
+		MeasurementSystem sys = MeasurementSystem.getSystem();
+		metre = sys.getUOM(Unit.METRE);
+		kilometre = sys.getUOM(Prefix.KILO, metre);
+
+		// equal to, but not the same instance as, the kilometre
+		otherKilometre = sys.createScalarUOM(kilometre.getUnitType(), "other km", "okm", "other km");
+		otherKilometre.setConversion(kilometre.getScalingFactor(), kilometre.getAbscissaUnit());
+
+		registry = new HashMap<>();
+		registry.put(metre, 1.0d);
+		registry.put(kilometre, 1000.0d);
+	}
+
+	@Benchmark
+	public int hashCodeOf() {
+		return kilometre.hashCode();
+	}
+
+	@Benchmark
+	public boolean equalsSame() {
+		return kilometre.equals(kilometre);
+	}
+
+	@Benchmark
+	public boolean equalsEqual() {
+		return kilometre.equals(otherKilometre);
+	}
+
+	@Benchmark
+	public boolean equalsDifferent() {
+		return kilometre.equals(metre);
+	}
+
+	@Benchmark
+	public Double registryLookup() {
+		return registry.get(kilometre);
+	}
+}
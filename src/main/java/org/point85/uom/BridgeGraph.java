@@ -0,0 +1,248 @@
+/*
+MIT License
+
+Copyright (c) 2016 Kent Randall
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package org.point85.uom;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * The BridgeGraph connects the root units of conversion paths through bridge
+ * conversions, so that a unit can be converted over more than one bridge, e.g.
+ * a custom unit bridged to the US fluid ounce, which is bridged to the litre.
+ * Each bridge is an edge between the roots of the paths of the bridged unit and
+ * its bridge abscissa unit. The transitive closure is kept as a factor from
+ * each root to a representative root of its connected group, so the factor
+ * between any two roots is found with two lookups. <br>
+ * Each {@link MeasurementSystem} has its own graph. A bridge between units of
+ * the unified system and of another system belongs to the other system, whose
+ * graph also includes the bridges of the unified system. <br>
+ * A new bridge merges two groups. Replacing or removing a bridge, or
+ * redefining a unit on the path of a bridged unit, rebuilds the closure on the
+ * next lookup.
+ *
+ * @author Kent Randall
+ *
+ */
+final class BridgeGraph {
+	// system that owns the bridges
+	private final MeasurementSystem system;
+
+	// units with a bridge conversion, in the order that they were bridged
+	private final List<UnitOfMeasure> bridgedUnits = new ArrayList<>();
+
+	// incremented when a bridge is added or removed
+	private volatile long changes = 0L;
+
+	// the closure of the bridges
+	private volatile Closure closure = new Closure(new IdentityHashMap<>(), -1L);
+
+	BridgeGraph(MeasurementSystem system) {
+		this.system = system;
+	}
+
+	// changes when a bridge of this graph or of the graph it extends, or a unit
+	// definition of the system, changes
+	private long getStamp() {
+		MeasurementSystem parent = system.getParent();
+		long stamp = changes + system.getDefinitionVersion();
+		return parent != null ? stamp + parent.getBridgeGraph().changes : stamp;
+	}
+
+	// add the bridge conversion of the unit to the graph
+	synchronized void addBridge(UnitOfMeasure uom, boolean replaced) {
+		boolean present = false;
+
+		for (UnitOfMeasure bridged : bridgedUnits) {
+			if (bridged == uom) {
+				present = true;
+				break;
+			}
+		}
+
+		if (!present) {
+			bridgedUnits.add(uom);
+		}
+
+		Closure current = closure;
+		long stamp = getStamp();
+		changes++;
+
+		if (replaced || current.stamp != stamp) {
+			closure = build();
+		} else if (uom.getBridgeAbscissaUnit() != null) {
+			// merge the groups of the bridged roots
+			Map<UnitOfMeasure, Node> nodes = new IdentityHashMap<>(current.nodes);
+			merge(nodes, uom);
+			closure = new Closure(nodes, getStamp());
+		}
+	}
+
+	// remove all bridges
+	synchronized void clear() {
+		bridgedUnits.clear();
+		changes++;
+		closure = build();
+	}
+
+	// remove the unit from the graph
+	synchronized void removeBridge(UnitOfMeasure uom) {
+		if (bridgedUnits.removeIf(bridged -> bridged == uom)) {
+			changes++;
+			closure = build();
+		}
+	}
+
+	// the factor to convert the from root unit to the to root unit over the
+	// bridges, or 0 if they are not connected
+	double getFactor(UnitOfMeasure fromRoot, UnitOfMeasure toRoot) {
+		Closure current = closure;
+
+		if (current.stamp != getStamp()) {
+			current = rebuild();
+		}
+
+		Node from = current.nodes.get(getKey(fromRoot));
+		Node to = current.nodes.get(getKey(toRoot));
+
+		if (from == null || to == null || from.representative != to.representative) {
+			return 0.0d;
+		}
+		return from.factor / to.factor;
+	}
+
+	private synchronized Closure rebuild() {
+		Closure current = closure;
+
+		if (current.stamp != getStamp()) {
+			current = build();
+			closure = current;
+		}
+		return current;
+	}
+
+	// the bridged units, for a graph that extends this one
+	private synchronized List<UnitOfMeasure> getBridgedUnits() {
+		return new ArrayList<>(bridgedUnits);
+	}
+
+	// compute the closure of all bridges, those of the extended graph first
+	private Closure build() {
+		long stamp = getStamp();
+		Map<UnitOfMeasure, Node> nodes = new IdentityHashMap<>();
+
+		List<UnitOfMeasure> units = new ArrayList<>();
+
+		if (system.getParent() != null) {
+			units.addAll(system.getParent().getBridgeGraph().getBridgedUnits());
+		}
+		units.addAll(bridgedUnits);
+
+		for (UnitOfMeasure uom : units) {
+			if (uom.getBridgeAbscissaUnit() != null) {
+				merge(nodes, uom);
+			}
+		}
+		return new Closure(nodes, stamp);
+	}
+
+	// join the group of the bridged unit's root to that of its bridge abscissa
+	// unit's root
+	private void merge(Map<UnitOfMeasure, Node> nodes, UnitOfMeasure uom) {
+		UnitOfMeasure abscissa = uom.getBridgeAbscissaUnit();
+
+		// 1 root = edgeFactor x abscissa root
+		UnitOfMeasure root = getKey(uom.getPathRoot());
+		UnitOfMeasure abscissaRoot = getKey(abscissa.getPathRoot());
+		double edgeFactor = uom.getBridgeScalingFactor() * abscissa.getPathFactor() / uom.getPathFactor();
+
+		Node node = getNode(nodes, root);
+		Node abscissaNode = getNode(nodes, abscissaRoot);
+
+		if (node.representative == abscissaNode.representative) {
+			// already connected, the first bridge wins
+			return;
+		}
+
+		// move the abscissa root's group to the representative of the root's group
+		UnitOfMeasure oldRepresentative = abscissaNode.representative;
+		double rescale = node.factor / (edgeFactor * abscissaNode.factor);
+
+		for (Entry<UnitOfMeasure, Node> entry : nodes.entrySet()) {
+			Node member = entry.getValue();
+
+			if (member.representative == oldRepresentative) {
+				entry.setValue(new Node(node.representative, member.factor * rescale));
+			}
+		}
+	}
+
+	// this system's copy of a pre-defined root is the same node as the extended
+	// system's unit
+	private UnitOfMeasure getKey(UnitOfMeasure root) {
+		MeasurementSystem parent = system.getParent();
+
+		if (parent == null || root.getMeasurementSystem() != system) {
+			return root;
+		}
+
+		UnitOfMeasure predefined = parent.getPredefinedUOM(root);
+		return predefined != null ? predefined : root;
+	}
+
+	private static Node getNode(Map<UnitOfMeasure, Node> nodes, UnitOfMeasure root) {
+		Node node = nodes.get(root);
+
+		if (node == null) {
+			node = new Node(root, 1.0d);
+			nodes.put(root, node);
+		}
+		return node;
+	}
+
+	// a root unit's group representative and the factor to it (1 root = factor x
+	// representative)
+	private static final class Node {
+		private final UnitOfMeasure representative;
+		private final double factor;
+
+		private Node(UnitOfMeasure representative, double factor) {
+			this.representative = representative;
+			this.factor = factor;
+		}
+	}
+
+	// nodes by root unit for a stamp of the bridges and definitions
+	private static final class Closure {
+		private final Map<UnitOfMeasure, Node> nodes;
+		private final long stamp;
+
+		private Closure(Map<UnitOfMeasure, Node> nodes, long stamp) {
+			this.nodes = nodes;
+			this.stamp = stamp;
+		}
+	}
+}
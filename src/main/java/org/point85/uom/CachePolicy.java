@@ -0,0 +1,49 @@
+/*
+MIT License
+
+Copyright (c) 2016 Kent Randall
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package org.point85.uom;
+
+/**
+ * CachePolicy is an enumeration of the ways a {@link MeasurementSystem} can
+ * cache its registered units of measure and the conversion factors of each
+ * unit of measure. Pre-defined and bridged units of measure are always
+ * registered, whatever the policy.
+ * 
+ * @author Kent Randall
+ *
+ */
+public enum CachePolicy {
+	// entries are kept until removed or cleared (the default)
+	UNBOUNDED,
+
+	// the least recently used entries are evicted when the maximum size is
+	// exceeded. Recency is approximate: a hit stamps its entry with the time of
+	// the latest put rather than reordering the cache, entries with the same
+	// stamp are equally recent, and about a sixteenth of the entries are
+	// evicted at once.
+	LRU,
+
+	// an entry is evicted once its unit of measure is no longer referenced
+	// elsewhere
+	WEAK
+}
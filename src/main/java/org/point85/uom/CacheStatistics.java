@@ -0,0 +1,115 @@
+/*
+MIT License
+
+Copyright (c) 2016 Kent Randall
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package org.point85.uom;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * CacheStatistics counts the hits, misses and evictions of a group of caches
+ * that share a {@link CachePolicy}.
+ * 
+ * @author Kent Randall
+ *
+ */
+public class CacheStatistics {
+	// lookups that found an entry
+	private final LongAdder hits = new LongAdder();
+
+	// lookups that did not find an entry
+	private final LongAdder misses = new LongAdder();
+
+	// entries removed by the cache policy
+	private final LongAdder evictions = new LongAdder();
+
+	CacheStatistics() {
+		// created by the measurement system
+	}
+
+	void recordHit() {
+		hits.increment();
+	}
+
+	void recordMiss() {
+		misses.increment();
+	}
+
+	void recordEviction() {
+		evictions.increment();
+	}
+
+	/**
+	 * Get the number of lookups that found an entry
+	 * 
+	 * @return Hit count
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Get the number of lookups that did not find an entry
+	 * 
+	 * @return Miss count
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Get the number of entries removed by the cache policy
+	 * 
+	 * @return Eviction count
+	 */
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	/**
+	 * Get the fraction of lookups that found an entry
+	 * 
+	 * @return Hit rate from 0 to 1, or 0 if there have been no lookups
+	 */
+	public double getHitRate() {
+		long hitCount = getHits();
+		long total = hitCount + getMisses();
+		return total > 0 ? (double) hitCount / total : 0.0d;
+	}
+
+	/**
+	 * Set all of the counts to zero
+	 */
+	public void reset() {
+		hits.reset();
+		misses.reset();
+		evictions.reset();
+	}
+
+	/**
+	 * Create a String representation of these statistics
+	 */
+	@Override
+	public String toString() {
+		return "hits: " + getHits() + ", misses: " + getMisses() + ", evictions: " + getEvictions();
+	}
+}
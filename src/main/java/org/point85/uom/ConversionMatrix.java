@@ -0,0 +1,85 @@
+/*
+MIT License
+
+Copyright (c) 2016 Kent Randall
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package org.point85.uom;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The ConversionMatrix caches conversion factors between the pre-defined units
+ * of measure in a dense table indexed by the ordinals of the from and to
+ * {@link Unit} enumerations. A row is allocated the first time a conversion
+ * from its unit is cached. <br>
+ * A factor of NaN means that the conversion has not been cached, so any
+ * computed factor (including zero) can be stored. Rows and factors are
+ * published atomically, so a reading thread sees either NaN or a complete
+ * factor. The matrix is never cleared in place. Instead the
+ * {@link MeasurementSystem} replaces it when the definition of a pre-defined
+ * unit changes, so a factor computed from an old definition can only be stored
+ * in a matrix that is no longer in use.
+ *
+ * @author Kent Randall
+ *
+ */
+class ConversionMatrix {
+	// number of pre-defined units
+	private static final int SIZE = Unit.values().length;
+
+	// bit pattern of a factor that has not been cached
+	private static final long NOT_CACHED = Double.doubleToRawLongBits(Double.NaN);
+
+	// factor bits by from unit ordinal, then to unit ordinal
+	private final AtomicReferenceArray<AtomicLongArray> rows = new AtomicReferenceArray<>(SIZE);
+
+	ConversionMatrix() {
+		// empty matrix
+	}
+
+	// get the cached factor, or NaN if not cached
+	double getFactor(Unit fromUnit, Unit toUnit) {
+		AtomicLongArray row = rows.get(fromUnit.ordinal());
+		return row != null ? Double.longBitsToDouble(row.get(toUnit.ordinal())) : Double.NaN;
+	}
+
+	// cache the factor
+	void setFactor(Unit fromUnit, Unit toUnit, double factor) {
+		AtomicLongArray row = rows.get(fromUnit.ordinal());
+
+		if (row == null) {
+			AtomicLongArray newRow = new AtomicLongArray(SIZE);
+
+			for (int i = 0; i < SIZE; i++) {
+				newRow.lazySet(i, NOT_CACHED);
+			}
+
+			// the row is published filled, and a racing thread's row wins
+			if (rows.compareAndSet(fromUnit.ordinal(), null, newRow)) {
+				row = newRow;
+			} else {
+				row = rows.get(fromUnit.ordinal());
+			}
+		}
+		row.set(toUnit.ordinal(), Double.doubleToRawLongBits(factor));
+	}
+}
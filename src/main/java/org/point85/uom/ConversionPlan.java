@@ -0,0 +1,247 @@
+/*
+MIT License
+
+Copyright (c) 2016 Kent Randall
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package org.point85.uom;
+
+import java.nio.BufferOverflowException;
+import java.nio.DoubleBuffer;
+import java.util.Objects;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * A ConversionPlan is the conversion from one {@link UnitOfMeasure} to another
+ * resolved once into the linear relation y = ax + b. The plan can be held by
+ * the caller and applied to any number of amounts without looking up the
+ * conversion factor or creating a {@link Quantity} for each amount. <br>
+ * The plan is a snapshot of the conversion at the time it is created. If the
+ * conversion of either unit of measure is subsequently changed, a new plan must
+ * be created.
+ *
+ * @author Kent Randall
+ *
+ */
+public class ConversionPlan {
+	// unit of measure to convert from
+	private final UnitOfMeasure fromUOM;
+
+	// unit of measure to convert to
+	private final UnitOfMeasure toUOM;
+
+	// slope (a)
+	private final double slope;
+
+	// intercept (b)
+	private final double intercept;
+
+	ConversionPlan(UnitOfMeasure fromUOM, UnitOfMeasure toUOM) throws Exception {
+		if (toUOM == null) {
+			throw new Exception(MeasurementSystem.getMessage("unit.cannot.be.null"));
+		}
+
+		this.fromUOM = fromUOM;
+		this.toUOM = toUOM;
+
+		// same math as Quantity.convert(): (x + this offset) * factor - target offset
+		double factor = fromUOM.getConversionFactor(toUOM);
+		this.slope = factor;
+		this.intercept = fromUOM.getOffset() * factor - toUOM.getOffset();
+	}
+
+	/**
+	 * Get the unit of measure to convert from
+	 *
+	 * @return {@link UnitOfMeasure}
+	 */
+	public UnitOfMeasure getFromUOM() {
+		return fromUOM;
+	}
+
+	/**
+	 * Get the unit of measure to convert to
+	 *
+	 * @return {@link UnitOfMeasure}
+	 */
+	public UnitOfMeasure getToUOM() {
+		return toUOM;
+	}
+
+	/**
+	 * Get the 'a' factor (slope) for the relation y = ax + b.
+	 *
+	 * @return Slope
+	 */
+	public double getSlope() {
+		return slope;
+	}
+
+	/**
+	 * Get the 'b' offset (intercept) for the relation y = ax + b.
+	 *
+	 * @return Intercept
+	 */
+	public double getIntercept() {
+		return intercept;
+	}
+
+	/**
+	 * Convert an amount in the from unit of measure to the target unit of measure
+	 *
+	 * @param amount Amount to convert
+	 * @return Converted amount
+	 */
+	public double convert(double amount) {
+		return amount * slope + intercept;
+	}
+
+	/**
+	 * Get a function that converts an amount in the from unit of measure to the
+	 * target unit of measure. The function is specialized for the plan: the
+	 * identity if the units are equivalent, only a multiplication if there is no
+	 * intercept, only an addition if the slope is 1, otherwise a multiply-add.
+	 *
+	 * @return {@link DoubleUnaryOperator}
+	 */
+	public DoubleUnaryOperator toOperator() {
+		if (intercept == 0.0d) {
+			return slope == 1.0d ? DoubleUnaryOperator.identity() : new Scale(slope);
+		}
+		return slope == 1.0d ? new Shift(intercept) : new Linear(slope, intercept);
+	}
+
+	/**
+	 * Convert all of the amounts in the source array into the destination array.
+	 * The arrays can be the same for an in-place conversion.
+	 *
+	 * @param src Amounts in the from unit of measure
+	 * @param dst Converted amounts
+	 */
+	public void convert(double[] src, double[] dst) {
+		convert(src, 0, dst, 0, src.length);
+	}
+
+	/**
+	 * Convert a range of amounts in the source array into the destination array.
+	 *
+	 * @param src    Amounts in the from unit of measure
+	 * @param srcPos Starting position in the source array
+	 * @param dst    Converted amounts
+	 * @param dstPos Starting position in the destination array
+	 * @param length Number of amounts to convert
+	 */
+	public void convert(double[] src, int srcPos, double[] dst, int dstPos, int length) {
+		Objects.checkFromIndexSize(srcPos, length, src.length);
+		Objects.checkFromIndexSize(dstPos, length, dst.length);
+
+		// a simple counted loop of multiply-adds can be vectorized by the JIT
+		final double a = slope;
+		final double b = intercept;
+
+		for (int i = 0; i < length; i++) {
+			dst[dstPos + i] = src[srcPos + i] * a + b;
+		}
+	}
+
+	/**
+	 * Convert the remaining amounts in the source buffer into the destination
+	 * buffer. The position of both buffers is advanced by the number of amounts
+	 * converted.
+	 *
+	 * @param src Amounts in the from unit of measure
+	 * @param dst Converted amounts
+	 */
+	public void convert(DoubleBuffer src, DoubleBuffer dst) {
+		int length = src.remaining();
+
+		if (dst.remaining() < length) {
+			throw new BufferOverflowException();
+		}
+
+		if (src.hasArray() && dst.hasArray() && !dst.isReadOnly()) {
+			// heap buffers
+			convert(src.array(), src.arrayOffset() + src.position(), dst.array(), dst.arrayOffset() + dst.position(),
+					length);
+			src.position(src.position() + length);
+			dst.position(dst.position() + length);
+		} else {
+			// direct buffers
+			for (int i = 0; i < length; i++) {
+				dst.put(src.get() * slope + intercept);
+			}
+		}
+	}
+
+	/**
+	 * Create a String representation of this ConversionPlan
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(fromUOM.getSymbol()).append(" -> ").append(toUOM.getSymbol()).append(": ");
+		sb.append(slope).append("x + ").append(intercept);
+		return sb.toString();
+	}
+
+	// y = ax
+	private static final class Scale implements DoubleUnaryOperator {
+		private final double slope;
+
+		private Scale(double slope) {
+			this.slope = slope;
+		}
+
+		@Override
+		public double applyAsDouble(double amount) {
+			return amount * slope;
+		}
+	}
+
+	// y = x + b
+	private static final class Shift implements DoubleUnaryOperator {
+		private final double intercept;
+
+		private Shift(double intercept) {
+			this.intercept = intercept;
+		}
+
+		@Override
+		public double applyAsDouble(double amount) {
+			return amount + intercept;
+		}
+	}
+
+	// y = ax + b
+	private static final class Linear implements DoubleUnaryOperator {
+		private final double slope;
+		private final double intercept;
+
+		private Linear(double slope, double intercept) {
+			this.slope = slope;
+			this.intercept = intercept;
+		}
+
+		@Override
+		public double applyAsDouble(double amount) {
+			return amount * slope + intercept;
+		}
+	}
+}
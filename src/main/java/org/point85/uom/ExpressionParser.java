@@ -0,0 +1,339 @@
+/*
+MIT License
+
+Copyright (c) 2016 Kent Randall
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package org.point85.uom;
+
+import java.text.MessageFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The ExpressionParser creates a {@link UnitOfMeasure} from an expression such
+ * as "kg·m/s²", "km/h" or "N*m". The expression is read in a single pass
+ * without regular expressions. The operators are:
+ * <ul>
+ * <li>multiplication: '·' or '*'</li>
+ * <li>division: '/'</li>
+ * <li>power: '^' followed by an integer, '²' or '³'</li>
+ * <li>grouping: '(' and ')'</li>
+ * </ul>
+ * Multiplication and division have the same precedence and are applied from
+ * left to right, so "J/kg·K" is (J/kg)·K. A symbol between operators is first
+ * looked up as is, and then as a {@link Prefix} symbol followed by a unit
+ * symbol, e.g. "km". Products, quotients and powers that are not already
+ * registered are created by the {@link MeasurementSystem}. <br>
+ * Parsed expressions are cached. The cache is cleared when a unit is
+ * unregistered or redefined, and when it reaches its maximum size.
+ *
+ * @author Kent Randall
+ *
+ */
+class ExpressionParser {
+	// maximum number of cached expressions
+	static final int MAX_SIZE = 1024;
+
+	// operators
+	private static final char MULT = (char) 0xB7;
+	private static final char STAR = '*';
+	private static final char DIV = '/';
+	private static final char POW = '^';
+	private static final char SQ = (char) 0xB2;
+	private static final char CUBED = (char) 0xB3;
+	private static final char LP = '(';
+	private static final char RP = ')';
+	private static final char MINUS = '-';
+
+	// system to look up and create units in
+	private final MeasurementSystem system;
+
+	// parsed units of measure by expression
+	private final Map<String, UnitOfMeasure> expressions = new ConcurrentHashMap<>();
+
+	ExpressionParser(MeasurementSystem system) {
+		this.system = system;
+	}
+
+	// get the unit of measure for the expression
+	UnitOfMeasure parse(String expression) throws Exception {
+		if (expression == null || expression.trim().length() == 0) {
+			throw new Exception(MeasurementSystem.getMessage("expression.cannot.be.null"));
+		}
+
+		UnitOfMeasure uom = expressions.get(expression);
+
+		if (uom != null) {
+			return uom;
+		}
+
+		// a registered symbol
+		uom = lookup(expression.trim());
+
+		if (uom == null) {
+			Cursor cursor = new Cursor(expression);
+			uom = parseExpression(cursor);
+
+			if (!cursor.atEnd()) {
+				// e.g. an unbalanced right parenthesis
+				throw cursor.invalid();
+			}
+		}
+
+		if (expressions.size() >= MAX_SIZE) {
+			expressions.clear();
+		}
+		expressions.put(expression, uom);
+
+		return uom;
+	}
+
+	void clear() {
+		expressions.clear();
+	}
+
+	int size() {
+		return expressions.size();
+	}
+
+	// term {(MULT | STAR | DIV) term}
+	private UnitOfMeasure parseExpression(Cursor cursor) throws Exception {
+		UnitOfMeasure uom = parseTerm(cursor);
+
+		while (true) {
+			char c = cursor.skipSpaces();
+
+			if (c == MULT || c == STAR) {
+				cursor.next();
+				uom = multiply(uom, parseTerm(cursor));
+			} else if (c == DIV) {
+				cursor.next();
+				uom = divide(uom, parseTerm(cursor));
+			} else {
+				break;
+			}
+		}
+		return uom;
+	}
+
+	// primary {POW [MINUS] integer | SQ | CUBED}
+	private UnitOfMeasure parseTerm(Cursor cursor) throws Exception {
+		UnitOfMeasure uom = parsePrimary(cursor);
+
+		while (true) {
+			char c = cursor.skipSpaces();
+
+			if (c == SQ) {
+				cursor.next();
+				uom = power(uom, 2);
+			} else if (c == CUBED) {
+				cursor.next();
+				uom = power(uom, 3);
+			} else if (c == POW) {
+				cursor.next();
+				uom = power(uom, parseExponent(cursor));
+			} else {
+				break;
+			}
+		}
+		return uom;
+	}
+
+	// LP expression RP or a symbol
+	private UnitOfMeasure parsePrimary(Cursor cursor) throws Exception {
+		char c = cursor.skipSpaces();
+
+		if (c == LP) {
+			cursor.next();
+			UnitOfMeasure uom = parseExpression(cursor);
+
+			if (cursor.skipSpaces() != RP) {
+				throw cursor.invalid();
+			}
+			cursor.next();
+			return uom;
+		}
+
+		// the symbol runs to the next operator
+		int start = cursor.position();
+
+		while (!cursor.atEnd() && !isOperator(cursor.peek())) {
+			cursor.next();
+		}
+
+		String symbol = cursor.text(start).trim();
+
+		if (symbol.length() == 0) {
+			throw cursor.invalid();
+		}
+		return resolve(symbol, cursor.expression());
+	}
+
+	private int parseExponent(Cursor cursor) throws Exception {
+		boolean negative = false;
+
+		if (cursor.skipSpaces() == MINUS) {
+			negative = true;
+			cursor.next();
+		}
+
+		int exponent = 0;
+		int digits = 0;
+
+		while (!cursor.atEnd() && Character.isDigit(cursor.peek())) {
+			exponent = exponent * 10 + Character.digit(cursor.peek(), 10);
+			cursor.next();
+			digits++;
+		}
+
+		if (digits == 0 || digits > 4) {
+			throw cursor.invalid();
+		}
+		return negative ? -exponent : exponent;
+	}
+
+	private static boolean isOperator(char c) {
+		return c == MULT || c == STAR || c == DIV || c == POW || c == SQ || c == CUBED || c == LP || c == RP;
+	}
+
+	// find a unit by symbol, creating only the pre-defined unit with the symbol
+	// if it has not been created yet
+	private UnitOfMeasure lookup(String symbol) throws Exception {
+		UnitOfMeasure uom = system.getUOM(symbol);
+
+		if (uom == null) {
+			Unit unit = PredefinedUnits.getInstance().fromSymbol(symbol);
+
+			if (unit != null) {
+				uom = system.getUOM(unit);
+			}
+		}
+		return uom;
+	}
+
+	// a unit symbol or a prefix symbol followed by a unit symbol
+	private UnitOfMeasure resolve(String symbol, String expression) throws Exception {
+		UnitOfMeasure uom = lookup(symbol);
+
+		if (uom != null) {
+			return uom;
+		}
+
+		// longest prefix first, e.g. "da" before "d"
+		for (int length = Math.min(Prefix.getMaxSymbolLength(), symbol.length() - 1); length > 0; length--) {
+			Prefix prefix = Prefix.fromSymbol(symbol.substring(0, length));
+
+			if (prefix == null) {
+				continue;
+			}
+
+			UnitOfMeasure target = lookup(symbol.substring(length));
+
+			if (target != null) {
+				return system.getUOM(prefix, target);
+			}
+		}
+
+		String msg = MessageFormat.format(MeasurementSystem.getMessage("symbol.not.found"), symbol, expression);
+		throw new Exception(msg);
+	}
+
+	// reuse a registered unit with the generated symbol, else create one
+	UnitOfMeasure multiply(UnitOfMeasure multiplier, UnitOfMeasure multiplicand) throws Exception {
+		UnitOfMeasure uom = system.getUOM(UnitOfMeasure.generateProductSymbol(multiplier, multiplicand));
+		return uom != null ? uom : system.createProductUOM(multiplier, multiplicand);
+	}
+
+	UnitOfMeasure divide(UnitOfMeasure dividend, UnitOfMeasure divisor) throws Exception {
+		UnitOfMeasure uom = system.getUOM(UnitOfMeasure.generateQuotientSymbol(dividend, divisor));
+		return uom != null ? uom : system.createQuotientUOM(dividend, divisor);
+	}
+
+	UnitOfMeasure power(UnitOfMeasure base, int exponent) throws Exception {
+		if (exponent == 1) {
+			return base;
+		} else if (exponent == 0) {
+			return system.getOne();
+		}
+
+		// squares and cubes are registered with superscripts, e.g. "s²"
+		UnitOfMeasure uom = null;
+
+		if (exponent == 2) {
+			uom = system.getUOM(base.getSymbol() + SQ);
+		} else if (exponent == 3) {
+			uom = system.getUOM(base.getSymbol() + CUBED);
+		}
+
+		if (uom == null) {
+			uom = system.getUOM(UnitOfMeasure.generatePowerSymbol(base, exponent));
+		}
+		return uom != null ? uom : system.createPowerUOM(base, exponent);
+	}
+
+	// position in the expression being parsed
+	private static final class Cursor {
+		private final String expression;
+		private int position = 0;
+
+		private Cursor(String expression) {
+			this.expression = expression;
+		}
+
+		private boolean atEnd() {
+			return position >= expression.length();
+		}
+
+		private char peek() {
+			return expression.charAt(position);
+		}
+
+		private void next() {
+			position++;
+		}
+
+		// skip white space and return the next character, or 0 at the end
+		private char skipSpaces() {
+			while (!atEnd() && Character.isWhitespace(peek())) {
+				position++;
+			}
+			return atEnd() ? 0 : peek();
+		}
+
+		private int position() {
+			return position;
+		}
+
+		private String text(int start) {
+			return expression.substring(start, position);
+		}
+
+		private String expression() {
+			return expression;
+		}
+
+		private Exception invalid() {
+			String msg = MessageFormat.format(MeasurementSystem.getMessage("invalid.expression"), expression,
+					position);
+			return new Exception(msg);
+		}
+	}
+}
@@ -0,0 +1,315 @@
+/*
+MIT License
+
+Copyright (c) 2016 Kent Randall
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package org.point85.uom;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The Measure class is a lean, immutable amount and {@link UnitOfMeasure} for
+ * hot loops. Unlike a {@link Quantity} it has no name, symbol or description,
+ * and its operations do not create intermediate objects, so the JIT compiler
+ * can often keep a Measure that does not escape a method in registers. <br>
+ * For long-lived storage a Measure can be packed into {@link #BYTES} bytes: the
+ * unit's id from {@link MeasurementSystem#getUnitId(UnitOfMeasure)} of the
+ * unit's own measurement system followed by the amount, and read back with that
+ * system. See also {@link MeasureArray}.
+ * 
+ * @author Kent Randall
+ *
+ */
+public final class Measure implements Comparable<Measure> {
+	/**
+	 * Number of bytes in the packed form of a measure (int unit id and double
+	 * amount)
+	 */
+	public static final int BYTES = Integer.BYTES + Double.BYTES;
+
+	// the amount
+	private final double amount;
+
+	// and its unit of measure
+	private final UnitOfMeasure uom;
+
+	/**
+	 * Create a measure with an amount and unit of measure
+	 * 
+	 * @param amount Amount
+	 * @param uom    {@link UnitOfMeasure}
+	 */
+	public Measure(double amount, UnitOfMeasure uom) {
+		this.amount = amount;
+		this.uom = uom;
+	}
+
+	/**
+	 * Create a measure with an amount and unit
+	 * 
+	 * @param amount Amount
+	 * @param unit   {@link Unit}
+	 * @throws Exception Exception
+	 */
+	public Measure(double amount, Unit unit) throws Exception {
+		this(amount, MeasurementSystem.getSystem().getUOM(unit));
+	}
+
+	/**
+	 * Create a measure with the amount and unit of measure of a quantity
+	 * 
+	 * @param quantity {@link Quantity}
+	 */
+	public Measure(Quantity quantity) {
+		this(quantity.getAmount(), quantity.getUOM());
+	}
+
+	/**
+	 * Get the amount of this measure
+	 * 
+	 * @return amount
+	 */
+	public double getAmount() {
+		return amount;
+	}
+
+	/**
+	 * Get the unit of measure of this measure
+	 * 
+	 * @return {@link UnitOfMeasure}
+	 */
+	public UnitOfMeasure getUOM() {
+		return uom;
+	}
+
+	/**
+	 * Create a quantity with the amount and unit of measure of this measure
+	 * 
+	 * @return {@link Quantity}
+	 */
+	public Quantity toQuantity() {
+		return new Quantity(amount, uom);
+	}
+
+	// the amount of the other measure in this measure's unit of measure
+	private double amountOf(Measure other) throws Exception {
+		if (other.uom == uom) {
+			return other.amount;
+		}
+		return convertAmount(other.amount, other.uom, uom);
+	}
+
+	// convert an amount without creating a quantity
+	private static double convertAmount(double amount, UnitOfMeasure fromUOM, UnitOfMeasure toUOM)
+			throws Exception {
+		double multiplier = fromUOM.getConversionFactor(toUOM);
+		return (amount + fromUOM.getOffset()) * multiplier - toUOM.getOffset();
+	}
+
+	/**
+	 * Add two measures
+	 * 
+	 * @param other {@link Measure}
+	 * @return Sum in this measure's unit of measure
+	 * @throws Exception Exception
+	 */
+	public Measure add(Measure other) throws Exception {
+		return new Measure(amount + amountOf(other), uom);
+	}
+
+	/**
+	 * Subtract a measure from this measure
+	 * 
+	 * @param other {@link Measure}
+	 * @return Difference in this measure's unit of measure
+	 * @throws Exception Exception
+	 */
+	public Measure subtract(Measure other) throws Exception {
+		return new Measure(amount - amountOf(other), uom);
+	}
+
+	/**
+	 * Multiply this measure by the specified amount
+	 * 
+	 * @param multiplier Amount
+	 * @return new Measure
+	 */
+	public Measure multiply(double multiplier) {
+		return new Measure(amount * multiplier, uom);
+	}
+
+	/**
+	 * Divide this measure by the specified amount
+	 * 
+	 * @param divisor Amount
+	 * @return new Measure
+	 * @throws Exception Exception
+	 */
+	public Measure divide(double divisor) throws Exception {
+		if (divisor == 0.0d) {
+			throw new Exception(MeasurementSystem.getMessage("divisor.cannot.be.zero"));
+		}
+		return new Measure(amount / divisor, uom);
+	}
+
+	/**
+	 * Multiply this measure by another measure
+	 * 
+	 * @param other {@link Measure}
+	 * @return Product
+	 * @throws Exception Exception
+	 */
+	public Measure multiply(Measure other) throws Exception {
+		return new Measure(amount * other.amount, uom.multiply(other.uom));
+	}
+
+	/**
+	 * Divide this measure by another measure
+	 * 
+	 * @param other {@link Measure}
+	 * @return Quotient
+	 * @throws Exception Exception
+	 */
+	public Measure divide(Measure other) throws Exception {
+		if (other.amount == 0.0d) {
+			throw new Exception(MeasurementSystem.getMessage("divisor.cannot.be.zero"));
+		}
+		return new Measure(amount / other.amount, uom.divide(other.uom));
+	}
+
+	/**
+	 * Convert this measure to the target unit of measure
+	 * 
+	 * @param toUOM {@link UnitOfMeasure}
+	 * @return Converted measure, or this measure if the units are the same
+	 * @throws Exception Exception
+	 */
+	public Measure convert(UnitOfMeasure toUOM) throws Exception {
+		if (toUOM == uom) {
+			return this;
+		}
+		return new Measure(convertAmount(amount, uom, toUOM), toUOM);
+	}
+
+	/**
+	 * Compare this measure to the other measure
+	 * 
+	 * @param other Measure
+	 * @return -1 if less than, 0 if equal and 1 if greater than
+	 * @throws Exception If the measures cannot be compared.
+	 */
+	public int compare(Measure other) throws Exception {
+		return Double.compare(amount, amountOf(other));
+	}
+
+	/**
+	 * Compare this measure to the other measure. The measures must be
+	 * convertible.
+	 * 
+	 * @param other Measure
+	 * @return -1 if less than, 0 if equal and 1 if greater than
+	 */
+	@Override
+	public int compareTo(Measure other) {
+		try {
+			return compare(other);
+		} catch (Exception e) {
+			throw new IllegalArgumentException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Write this measure to the buffer in its packed form. The unit id is
+	 * assigned by the measurement system of the unit of measure. The buffer does
+	 * not reference the unit of measure, so it must remain reachable, for example
+	 * registered, until the measure is read.
+	 * 
+	 * @param buffer {@link ByteBuffer} with at least {@link #BYTES} remaining
+	 */
+	public void put(ByteBuffer buffer) {
+		buffer.putInt(uom.getMeasurementSystem().getUnitId(uom));
+		buffer.putDouble(amount);
+	}
+
+	/**
+	 * Read a measure of the unified measurement system in its packed form from
+	 * the buffer
+	 * 
+	 * @param buffer {@link ByteBuffer} with at least {@link #BYTES} remaining
+	 * @return {@link Measure}
+	 * @throws Exception Exception
+	 */
+	public static Measure get(ByteBuffer buffer) throws Exception {
+		return get(buffer, MeasurementSystem.getSystem());
+	}
+
+	/**
+	 * Read a measure in its packed form from the buffer
+	 * 
+	 * @param buffer {@link ByteBuffer} with at least {@link #BYTES} remaining
+	 * @param system {@link MeasurementSystem} of the unit of measure
+	 * @return {@link Measure}
+	 * @throws Exception Exception
+	 */
+	public static Measure get(ByteBuffer buffer, MeasurementSystem system) throws Exception {
+		UnitOfMeasure uom = system.getUOMById(buffer.getInt());
+		return new Measure(buffer.getDouble(), uom);
+	}
+
+	/**
+	 * Create a hash code
+	 * 
+	 * @return hash code
+	 */
+	@Override
+	public int hashCode() {
+		return 31 * Double.hashCode(amount) + (uom != null ? uom.hashCode() : 0);
+	}
+
+	/**
+	 * Compare this Measure to another one
+	 * 
+	 * @param other Measure
+	 * @return true if equal
+	 */
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
+
+		if (!(other instanceof Measure)) {
+			return false;
+		}
+
+		Measure that = (Measure) other;
+		return Math.abs(amount - that.amount) < MeasurementSystem.EPSILON
+				&& (uom == that.uom || (uom != null && uom.equals(that.uom)));
+	}
+
+	/**
+	 * Create a String representation of this Measure
+	 */
+	@Override
+	public String toString() {
+		return amount + ", [" + uom + "]";
+	}
+}
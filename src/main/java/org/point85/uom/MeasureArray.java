@@ -0,0 +1,138 @@
+/*
+MIT License
+
+Copyright (c) 2016 Kent Randall
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package org.point85.uom;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * A MeasureArray stores a fixed number of measures in their packed form, an
+ * int unit id and a double amount, so that each element takes
+ * {@link Measure#BYTES} bytes rather than an object per measure. The unit ids
+ * are assigned by {@link MeasurementSystem#getUnitId(UnitOfMeasure)} of the
+ * array's measurement system, so all of its units must belong to that system.
+ * The array references each distinct unit it holds so that the ids stay valid.
+ * 
+ * @author Kent Randall
+ *
+ */
+public class MeasureArray {
+	// system that assigns the unit ids
+	private final MeasurementSystem system;
+
+	// unit of measure ids
+	private final int[] unitIds;
+
+	// amounts
+	private final double[] amounts;
+
+	// the distinct units of measure, kept reachable for their ids
+	private final Set<UnitOfMeasure> units = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	/**
+	 * Create an array of measures in the unified measurement system
+	 * 
+	 * @param size Number of measures
+	 */
+	public MeasureArray(int size) {
+		this(size, MeasurementSystem.getSystem());
+	}
+
+	/**
+	 * Create an array of measures in the measurement system
+	 * 
+	 * @param size   Number of measures
+	 * @param system {@link MeasurementSystem} of the units of measure
+	 */
+	public MeasureArray(int size, MeasurementSystem system) {
+		this.system = system;
+		unitIds = new int[size];
+		amounts = new double[size];
+	}
+
+	/**
+	 * Get the number of measures
+	 * 
+	 * @return Size
+	 */
+	public int size() {
+		return amounts.length;
+	}
+
+	/**
+	 * Set the measure at the index
+	 * 
+	 * @param index   Index
+	 * @param measure {@link Measure}
+	 */
+	public void set(int index, Measure measure) {
+		set(index, measure.getAmount(), measure.getUOM());
+	}
+
+	/**
+	 * Set the amount and unit of measure at the index
+	 * 
+	 * @param index  Index
+	 * @param amount Amount
+	 * @param uom    {@link UnitOfMeasure} of the array's measurement system
+	 */
+	public void set(int index, double amount, UnitOfMeasure uom) {
+		unitIds[index] = system.getUnitId(uom);
+		amounts[index] = amount;
+		units.add(uom);
+	}
+
+	/**
+	 * Get the measure at the index
+	 * 
+	 * @param index Index
+	 * @return {@link Measure}
+	 * @throws Exception Exception
+	 */
+	public Measure get(int index) throws Exception {
+		return new Measure(amounts[index], getUOM(index));
+	}
+
+	/**
+	 * Get the amount at the index
+	 * 
+	 * @param index Index
+	 * @return Amount
+	 */
+	public double getAmount(int index) {
+		return amounts[index];
+	}
+
+	/**
+	 * Get the unit of measure at the index
+	 * 
+	 * @param index Index
+	 * @return {@link UnitOfMeasure}
+	 * @throws Exception Exception
+	 */
+	public UnitOfMeasure getUOM(int index) throws Exception {
+		return system.getUOMById(unitIds[index]);
+	}
+}
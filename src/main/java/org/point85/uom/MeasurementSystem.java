@@ -22,16 +22,19 @@ SOFTWARE.
 
 package org.point85.uom;
 
+import java.lang.ref.WeakReference;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.ResourceBundle;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A MeasurementSystem is a collection of units of measure that have a linear
@@ -69,6 +72,15 @@ import java.util.concurrent.ConcurrentHashMap;
  * systems</li>
  * <li>any number of custom units of measure</li>
  * </ul>
+ * <br>
+ * The unified system returned by {@link #getSystem()} holds the pre-defined
+ * units. Other systems can be constructed for independent sets of custom
+ * units, e.g. one per customer. Each has its own registries and caches, and
+ * creates its own copy of a pre-defined unit the first time it is used, so a
+ * pre-defined unit redefined in one system is unchanged in the others. Units
+ * of two such systems cannot be multiplied or divided by each other. A custom
+ * unit registered in such a system with the symbol of a pre-defined unit hides
+ * the pre-defined unit in that system only.
  *
  */
 public class MeasurementSystem {
@@ -79,7 +91,7 @@ public class MeasurementSystem {
 	private static ResourceBundle messages;
 
 	// standard unified system
-	private static MeasurementSystem unifiedSystem = new MeasurementSystem();
+	private static MeasurementSystem unifiedSystem = new MeasurementSystem(null);
 
 	// name of resource bundle with translatable strings for UOMs (e.g. time)
 	private static final String UNIT_BUNDLE_NAME = "Unit";
@@ -87,13 +99,72 @@ public class MeasurementSystem {
 	// unit resource bundle (e.g. time units)
 	private static ResourceBundle units;
 
+	// system property to create all pre-defined units when this class is loaded
+	public static final String EAGER_PROPERTY = "org.point85.uom.eager";
+
+	// policy for the registries and the conversion caches of units
+	private volatile CachePolicy cachePolicy = CachePolicy.UNBOUNDED;
+
+	// maximum number of entries in an LRU cache
+	private volatile int maxCacheSize;
+
+	// true if anonymous units are registered with weak references
+	private volatile boolean weakRegistration = false;
+
+	// registry hits, misses and evictions
+	private final CacheStatistics registryStatistics = new CacheStatistics();
+
+	// conversion cache hits, misses and evictions
+	private final CacheStatistics conversionStatistics = new CacheStatistics();
+
 	// UOM cache manager
-	private CacheManager cacheManager = new CacheManager();
+	private volatile CacheManager cacheManager = new CacheManager(cachePolicy, maxCacheSize);
+
+	// conversion factors between pre-defined units
+	private volatile ConversionMatrix conversionMatrix = new ConversionMatrix();
+
+	// units of measure created by multiplication and division
+	private final ResultCache resultCache = new ResultCache(this);
+
+	// units of measure parsed from expressions
+	private final ExpressionParser expressionParser = new ExpressionParser(this);
+
+	// units of measure parsed from UCUM expressions
+	private final UnifiedCodeParser unifiedCodeParser = new UnifiedCodeParser(this, expressionParser);
+
+	// named units of measure by base symbol and scaling factor
+	private final NamedUnitIndex namedUnitIndex = new NamedUnitIndex(this);
+
+	// bridge conversions between the conversion paths of this system
+	private final BridgeGraph bridgeGraph = new BridgeGraph(this);
+
+	// units of measure by packed measure id, weakly referenced so that an id
+	// does not keep its unit alive. Ids are not reused.
+	private volatile WeakReference<UnitOfMeasure>[] unitsById = newUnitReferences(256);
+
+	// number of assigned ids
+	private int unitIdCount = 0;
+
+	// system with the pre-defined units, null for the unified system
+	private final MeasurementSystem parent;
+
+	// incremented when a unit that other units of this system are composed of
+	// is redefined
+	private final AtomicLong definitionVersion = new AtomicLong();
 
 	static {
 		// common unit strings
 		units = ResourceBundle.getBundle(UNIT_BUNDLE_NAME, Locale.getDefault());
 		messages = ResourceBundle.getBundle(MESSAGE_BUNDLE_NAME, Locale.getDefault());
+
+		if (Boolean.getBoolean(EAGER_PROPERTY)) {
+			try {
+				unifiedSystem.createAllUnits();
+			} catch (Exception e) {
+				// units will be created on first use instead
+				unifiedSystem.clearCache();
+			}
+		}
 	}
 
 	// get a particular message by its key
@@ -109,8 +180,23 @@ public class MeasurementSystem {
 	// floating point precision equality
     final static double EPSILON = 1e-10;
 
-	private MeasurementSystem() {
-		// Singleton
+	/**
+	 * Construct a measurement system for custom units of measure. The
+	 * pre-defined units are copied from their definitions into this system on
+	 * first use, so changing one of them only affects this system.
+	 */
+	public MeasurementSystem() {
+		this(unifiedSystem);
+	}
+
+	private MeasurementSystem(MeasurementSystem parent) {
+		this.parent = parent;
+	}
+
+	// a system with its own pre-defined units that does not extend the unified
+	// system
+	static MeasurementSystem createPrivateSystem() {
+		return new MeasurementSystem(null);
 	}
 
 	/**
@@ -1295,6 +1381,130 @@ public class MeasurementSystem {
 		return uom;
 	}
 
+	/**
+	 * Create all of the pre-defined units of measure now rather than on first
+	 * use. If no units have been cached yet, they are loaded from the catalog
+	 * snapshot generated at build time. Otherwise, or if there is no snapshot,
+	 * each {@link Unit} is created from its definition. This method is also
+	 * called when the class is loaded if the {@link #EAGER_PROPERTY} system
+	 * property is "true".
+	 * 
+	 * @throws Exception Exception
+	 */
+	public synchronized void createAllUnits() throws Exception {
+		if (cacheManager.getCachedUnits().isEmpty() && UnitCatalog.load(this)) {
+			return;
+		}
+
+		for (Unit unit : Unit.values()) {
+			getUOM(unit);
+		}
+	}
+
+	/**
+	 * Set the policy for caching registered units of measure and the
+	 * conversion factors of each unit of measure. The units already registered
+	 * are kept, and the conversion caches of these units are cleared. Units
+	 * created later use the new policy. The policy applies to custom units;
+	 * pre-defined and bridged units stay registered. The {@link CachePolicy#LRU}
+	 * policy approximates recency with access stamps and evicts in batches, so
+	 * an entry may be evicted slightly before the strictly least recently used
+	 * one.
+	 * 
+	 * @param policy  {@link CachePolicy}
+	 * @param maxSize Maximum number of entries in each cache for the LRU
+	 *                policy
+	 * @throws Exception Exception
+	 */
+	public synchronized void setCachePolicy(CachePolicy policy, int maxSize) throws Exception {
+		if (policy == null) {
+			throw new Exception(getMessage("policy.cannot.be.null"));
+		}
+
+		if (policy == CachePolicy.LRU && maxSize <= 0) {
+			String msg = MessageFormat.format(getMessage("invalid.cache.size"), maxSize);
+			throw new Exception(msg);
+		}
+
+		cachePolicy = policy;
+		maxCacheSize = maxSize;
+
+		CacheManager manager = new CacheManager(policy, maxSize);
+		manager.copy(cacheManager);
+		cacheManager = manager;
+
+		for (UnitOfMeasure uom : manager.getCachedUnits()) {
+			uom.resetConversionCache();
+		}
+		resultCache.clear();
+	}
+
+	/**
+	 * Set the registration mode for anonymous units of measure, i.e. those
+	 * without a name or {@link Unit} enumeration such as the units created by
+	 * {@link #createProductUOM(UnitOfMeasure, UnitOfMeasure)},
+	 * {@link #createQuotientUOM(UnitOfMeasure, UnitOfMeasure)} and
+	 * {@link #createPowerUOM(UnitOfMeasure, int)}. If weak, a unit registered
+	 * afterwards is removed from the registries once it is no longer
+	 * referenced elsewhere, e.g. by a {@link Quantity}. Note that the
+	 * conversion caches of other units also reference a unit after a
+	 * conversion to it unless the {@link CachePolicy#WEAK} policy is set.
+	 * 
+	 * @param weak True to hold anonymous units with weak references
+	 */
+	public void setWeakRegistration(boolean weak) {
+		weakRegistration = weak;
+	}
+
+	/**
+	 * Check if anonymous units of measure are registered with weak references
+	 * 
+	 * @return True if weak
+	 */
+	public boolean isWeakRegistration() {
+		return weakRegistration;
+	}
+
+	/**
+	 * Get the policy for caching units of measure and conversion factors
+	 * 
+	 * @return {@link CachePolicy}
+	 */
+	public CachePolicy getCachePolicy() {
+		return cachePolicy;
+	}
+
+	/**
+	 * Get the hit, miss and eviction counts of the registries of units of
+	 * measure by symbol, base symbol and enumeration
+	 * 
+	 * @return {@link CacheStatistics}
+	 */
+	public CacheStatistics getRegistryStatistics() {
+		return registryStatistics;
+	}
+
+	/**
+	 * Get the hit, miss and eviction counts of the conversion factor caches of
+	 * all units of measure
+	 * 
+	 * @return {@link CacheStatistics}
+	 */
+	public CacheStatistics getConversionStatistics() {
+		return conversionStatistics;
+	}
+
+	// create a conversion factor cache for a unit of measure
+	<V> UnitCache<UnitOfMeasure, V> createConversionCache() {
+		return UnitCache.create(cachePolicy, maxCacheSize, true, conversionStatistics);
+	}
+
+	// cache the units of measure loaded from a catalog snapshot
+	void installCatalog(List<UnitOfMeasure> registered, Map<String, UnitOfMeasure> baseUnits) {
+		cacheManager.install(registered, baseUnits);
+		clearConversionMatrix();
+	}
+
 	/**
 	 * Get the fundamental unit of measure of time
 	 * 
@@ -1352,7 +1562,69 @@ public class MeasurementSystem {
 	 * @return {@link UnitOfMeasure}
 	 */
 	public UnitOfMeasure getUOM(String symbol) {
-		return cacheManager.getUOM(symbol);
+		UnitOfMeasure uom = cacheManager.getUOM(symbol);
+
+		if (uom == null && parent != null) {
+			uom = getPredefinedUOM(parent.getUOM(symbol));
+		}
+		return uom;
+	}
+
+	// this system's copy of a pre-defined unit of another system, or null for a
+	// custom unit
+	UnitOfMeasure getPredefinedUOM(UnitOfMeasure uom) {
+		if (uom == null || uom.getEnumeration() == null) {
+			return null;
+		}
+
+		try {
+			return getUOM(uom.getEnumeration());
+		} catch (Exception e) {
+			// not defined in this system
+			return null;
+		}
+	}
+
+	/**
+	 * Get the unit of measure for an expression of unit symbols, e.g. "kg·m/s²",
+	 * "km/h" or "N*m". The operators are '·' or '*' for multiplication, '/' for
+	 * division, '^' followed by an integer, '²' or '³' for a power, and
+	 * parentheses for grouping. Multiplication and division are applied from
+	 * left to right. A symbol can have a {@link Prefix}, e.g. "km". Parsed
+	 * expressions are cached.
+	 * 
+	 * @param expression Unit expression
+	 * @return {@link UnitOfMeasure}
+	 * @throws Exception Exception
+	 */
+	public UnitOfMeasure parseUOM(String expression) throws Exception {
+		return expressionParser.parse(expression);
+	}
+
+	/**
+	 * Get the unit of measure for an expression in the Unified Code for Units of
+	 * Measure (UCUM), e.g. "[psi]", "kg.m/s2" or "10*3/uL". The UCUM codes of
+	 * the pre-defined units are indexed, so no remote service is called. The
+	 * syntax includes prefixes, integral exponents, powers of 10 and
+	 * annotations in braces, which are ignored. Parsed expressions are cached.
+	 * 
+	 * @param expression UCUM expression
+	 * @return {@link UnitOfMeasure}
+	 * @throws Exception Exception
+	 */
+	public UnitOfMeasure parseUnifiedCode(String expression) throws Exception {
+		return unifiedCodeParser.parse(expression);
+	}
+
+	/**
+	 * Get the Unified Code for Units of Measure (UCUM) code of a pre-defined
+	 * unit of measure
+	 * 
+	 * @param unit {@link Unit}
+	 * @return UCUM code, or null if the unit has no code of its own
+	 */
+	public String getUnifiedCode(Unit unit) {
+		return UnifiedCodeParser.getCode(unit);
 	}
 
 	/**
@@ -1362,7 +1634,12 @@ public class MeasurementSystem {
 	 * @return {@link UnitOfMeasure}
 	 */
 	public UnitOfMeasure getBaseUOM(String symbol) {
-		return cacheManager.getBaseUOM(symbol);
+		UnitOfMeasure uom = cacheManager.getBaseUOM(symbol);
+
+		if (uom == null && parent != null) {
+			uom = getPredefinedUOM(parent.getBaseUOM(symbol));
+		}
+		return uom;
 	}
 
 	/**
@@ -1370,10 +1647,126 @@ public class MeasurementSystem {
 	 */
 	public void clearCache() {
 		cacheManager.clearCache();
+		bridgeGraph.clear();
+		clearConversionMatrix();
+		resultCache.clear();
+		expressionParser.clear();
+		unifiedCodeParser.clear();
+		namedUnitIndex.reset();
+	}
+
+	// get the cache of units created by multiplication and division
+	ResultCache getResultCache() {
+		return resultCache;
+	}
+
+	// get the index of named units for simplification
+	NamedUnitIndex getNamedUnitIndex() {
+		return namedUnitIndex;
+	}
+
+	// get the system with the pre-defined units, null for the unified system
+	MeasurementSystem getParent() {
+		return parent;
+	}
+
+	// the version of the unit definitions of this system and the one it extends
+	long getDefinitionVersion() {
+		long version = definitionVersion.get();
+		return parent != null ? version + parent.getDefinitionVersion() : version;
+	}
+
+	// a unit that other units are composed of has been redefined
+	void onDefinitionChange() {
+		definitionVersion.incrementAndGet();
+	}
+
+	// get the conversion factor table for pre-defined units
+	ConversionMatrix getConversionMatrix() {
+		return conversionMatrix;
+	}
+
+	// discard all cached conversion factors between pre-defined units
+	void clearConversionMatrix() {
+		conversionMatrix = new ConversionMatrix();
+	}
+
+	/**
+	 * Get the id of the unit of measure for use in a packed {@link Measure}. An
+	 * id is assigned the first time it is requested and is kept for the life of
+	 * the unit, even if the cache is cleared. The id does not keep the unit
+	 * alive, so a unit that is not registered must be referenced elsewhere until
+	 * its packed measures are read.
+	 * 
+	 * @param uom {@link UnitOfMeasure} of this measurement system
+	 * @return Id
+	 * @throws IllegalArgumentException if the unit belongs to another
+	 *                                  measurement system
+	 */
+	public int getUnitId(UnitOfMeasure uom) {
+		if (uom.getMeasurementSystem() != this) {
+			// ids are only unique within the unit's own system
+			String msg = MessageFormat.format(getMessage("unit.other.system"), uom);
+			throw new IllegalArgumentException(msg);
+		}
+
+		int id = uom.getUnitId();
+
+		if (id == UnitOfMeasure.NO_ID) {
+			id = assignUnitId(uom);
+		}
+		return id;
+	}
+
+	private synchronized int assignUnitId(UnitOfMeasure uom) {
+		int id = uom.getUnitId();
+
+		if (id != UnitOfMeasure.NO_ID) {
+			return id;
+		}
+
+		int next = unitIdCount++;
+		WeakReference<UnitOfMeasure>[] units = unitsById;
+
+		if (next == units.length) {
+			units = Arrays.copyOf(units, units.length * 2);
+		}
+		units[next] = new WeakReference<>(uom);
+
+		// publish the unit before its id
+		unitsById = units;
+		uom.setUnitId(next);
+
+		return next;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static WeakReference<UnitOfMeasure>[] newUnitReferences(int size) {
+		return (WeakReference<UnitOfMeasure>[]) new WeakReference<?>[size];
 	}
 
 	/**
-	 * Get all units currently cached by this measurement system
+	 * Get the unit of measure with this id from a packed {@link Measure}
+	 * 
+	 * @param id Id
+	 * @return {@link UnitOfMeasure}
+	 * @throws Exception Exception
+	 */
+	public UnitOfMeasure getUOMById(int id) throws Exception {
+		WeakReference<UnitOfMeasure>[] units = unitsById;
+		WeakReference<UnitOfMeasure> ref = (id >= 0 && id < units.length) ? units[id] : null;
+		UnitOfMeasure uom = ref != null ? ref.get() : null;
+
+		if (uom == null) {
+			String msg = MessageFormat.format(getMessage("unit.id.not.found"), id);
+			throw new Exception(msg);
+		}
+		return uom;
+	}
+
+	/**
+	 * Get all units currently cached by this measurement system, including the
+	 * pre-defined units created in it so far.
 	 * 
 	 * @return List of {@link UnitOfMeasure}
 	 */
@@ -1392,7 +1785,10 @@ public class MeasurementSystem {
 	}
 
 	/**
-	 * Get the units of measure cached by their symbol
+	 * Get the units of measure cached by their symbol. The map is a
+	 * snapshot of the registries taken when called: it does not reflect later
+	 * registrations or evictions, and changing it does not change the
+	 * registries.
 	 * 
 	 * @return Symbol cache
 	 */
@@ -1401,7 +1797,10 @@ public class MeasurementSystem {
 	}
 
 	/**
-	 * Get the units of measure cached by their base symbol
+	 * Get the units of measure cached by their base symbol. The map is a
+	 * snapshot of the registries taken when called: it does not reflect later
+	 * registrations or evictions, and changing it does not change the
+	 * registries.
 	 * 
 	 * @return Base symbol cache
 	 */
@@ -1410,7 +1809,9 @@ public class MeasurementSystem {
 	}
 
 	/**
-	 * Get the units of measure cached by their {@link Unit} enumeration
+	 * Get the units of measure cached by their {@link Unit} enumeration. The
+	 * map is a snapshot of the registry taken when called: it does not reflect
+	 * later registrations, and changing it does not change the registry.
 	 * 
 	 * @return Enumeration cache
 	 */
@@ -1429,6 +1830,15 @@ public class MeasurementSystem {
 			return;
 		}
 		cacheManager.unregisterUnit(uom);
+		namedUnitIndex.remove(uom);
+
+		if (uom.getBridgeAbscissaUnit() != null) {
+			MeasurementSystem owner = uom.getBridgeOwner();
+			owner.getBridgeGraph().removeBridge(uom);
+			owner.onDefinitionChange();
+		}
+		expressionParser.clear();
+		unifiedCodeParser.clear();
 	}
 
 	ResourceBundle getSymbols() {
@@ -1443,6 +1853,23 @@ public class MeasurementSystem {
 	 */
 	public void registerUnit(UnitOfMeasure uom) throws Exception {
 		cacheManager.registerUnit(uom);
+		namedUnitIndex.add(uom);
+
+		if (uom.getBridgeAbscissaUnit() != null) {
+			// a redefined unit keeps its bridge
+			uom.getBridgeOwner().getBridgeGraph().addBridge(uom, false);
+		}
+	}
+
+	// the bridge conversions of this system
+	BridgeGraph getBridgeGraph() {
+		return bridgeGraph;
+	}
+
+	// keep a registered unit that has become bridged regardless of the cache
+	// policy
+	void pinUnit(UnitOfMeasure uom) throws Exception {
+		cacheManager.pin(uom);
 	}
 
 	private UnitOfMeasure createUOM(UnitType type, String name, String symbol, String description) throws Exception {
@@ -1459,7 +1886,7 @@ public class MeasurementSystem {
 
 		if (uom == null) {
 			// create a new one
-			uom = new UnitOfMeasure(type, name, symbol, description);
+			uom = new UnitOfMeasure(this, type, name, symbol, description);
 			uom.setAbscissaUnit(uom);
 		}
 		return uom;
@@ -1685,9 +2112,15 @@ public class MeasurementSystem {
 	 * @throws Exception Exception
 	 */
 	public UnitOfMeasure getUOM(Prefix prefix, UnitOfMeasure targetUOM) throws Exception {
-		String symbol = prefix.getSymbol() + targetUOM.getSymbol();
+		// the scaled unit is cached by the target while it is still registered
+		UnitOfMeasure scaled = targetUOM.getPrefixedUnit(prefix);
+
+		if (scaled != null && getUOM(scaled.getSymbol()) == scaled) {
+			return scaled;
+		}
 
-		UnitOfMeasure scaled = getUOM(symbol);
+		String symbol = prefix.getSymbol() + targetUOM.getSymbol();
+		scaled = getUOM(symbol);
 
 		// if not found, create it
 		if (scaled == null) {
@@ -1701,7 +2134,13 @@ public class MeasurementSystem {
 			// create the unit of measure and set conversion
 			scaled = createScalarUOM(targetUOM.getUnitType(), null, name, symbol, description);
 			scaled.setConversion(scalingFactor, targetUOM.getAbscissaUnit());
+			scaled.setPrefixedFrom(prefix, targetUOM);
+		} else if (scaled.getPrefix() == null && scaled.isPrefixedFrom(prefix, targetUOM)) {
+			// an existing unit with the same definition, e.g. a pre-defined one
+			scaled.setPrefixedFrom(prefix, targetUOM);
 		}
+		targetUOM.putPrefixedUnit(prefix, scaled);
+
 		return scaled;
 	}
 
@@ -1716,7 +2155,7 @@ public class MeasurementSystem {
 	 * @throws Exception Exception
 	 */
 	public UnitOfMeasure getUOM(Prefix prefix, Unit unit) throws Exception {
-		return getUOM(prefix, MeasurementSystem.getSystem().getUOM(unit));
+		return getUOM(prefix, getUOM(unit));
 	}
 
 	/**
@@ -2053,47 +2492,188 @@ public class MeasurementSystem {
 	}
 
 	private class CacheManager {
+		// pre-defined and bridged units by symbol, never evicted
+		private final UnitCache<String, UnitOfMeasure> pinnedSymbolRegistry;
+
+		// pre-defined and bridged units by base symbol, never evicted
+		private final UnitCache<String, UnitOfMeasure> pinnedBaseRegistry;
+
 		// registry by unit symbol
-		private Map<String, UnitOfMeasure> symbolRegistry = new ConcurrentHashMap<>();
+		private final UnitCache<String, UnitOfMeasure> symbolRegistry;
 
 		// registry by base symbol
-		private Map<String, UnitOfMeasure> baseRegistry = new ConcurrentHashMap<>();
+		private final UnitCache<String, UnitOfMeasure> baseRegistry;
+
+		// registry for pre-defined units by enumeration, never evicted
+		private final UnitCache<Unit, UnitOfMeasure> unitRegistry;
+
+		// weakly held anonymous units by symbol
+		private final UnitCache<String, UnitOfMeasure> anonymousSymbolRegistry;
 
-		// registry for units by enumeration
-		private Map<Unit, UnitOfMeasure> unitRegistry = new ConcurrentHashMap<>();
+		// weakly held anonymous units by base symbol
+		private final UnitCache<String, UnitOfMeasure> anonymousBaseRegistry;
+
+		private CacheManager(CachePolicy policy, int maxSize) {
+			pinnedSymbolRegistry = UnitCache.create(CachePolicy.UNBOUNDED, 0, false, registryStatistics);
+			pinnedBaseRegistry = UnitCache.create(CachePolicy.UNBOUNDED, 0, false, registryStatistics);
+			symbolRegistry = UnitCache.create(policy, maxSize, false, registryStatistics);
+			baseRegistry = UnitCache.create(policy, maxSize, false, registryStatistics);
+			unitRegistry = UnitCache.create(CachePolicy.UNBOUNDED, 0, false, registryStatistics);
+			anonymousSymbolRegistry = UnitCache.create(CachePolicy.WEAK, 0, false, registryStatistics);
+			anonymousBaseRegistry = UnitCache.create(CachePolicy.WEAK, 0, false, registryStatistics);
+		}
+
+		// the cache policy only applies to custom units, so that a pre-defined or
+		// bridged unit keeps its identity and state
+		private boolean isPinned(UnitOfMeasure uom) {
+			return uom.getEnumeration() != null || uom.getBridgeAbscissaUnit() != null;
+		}
 
 		private UnitOfMeasure getUOM(Unit unit) {
 			return unitRegistry.get(unit);
 		}
 
 		private UnitOfMeasure getUOM(String symbol) {
-			return symbolRegistry.get(symbol);
+			UnitOfMeasure uom = pinnedSymbolRegistry.lookup(symbol);
+
+			if (uom != null) {
+				registryStatistics.recordHit();
+				return uom;
+			}
+
+			uom = symbolRegistry.get(symbol);
+
+			if (uom == null && anonymousSymbolRegistry.size() > 0) {
+				uom = anonymousSymbolRegistry.get(symbol);
+			}
+			return uom;
 		}
 
 		private UnitOfMeasure getBaseUOM(String baseSymbol) {
-			return baseRegistry.get(baseSymbol);
+			UnitOfMeasure uom = pinnedBaseRegistry.lookup(baseSymbol);
+
+			if (uom != null) {
+				registryStatistics.recordHit();
+				return uom;
+			}
+
+			uom = baseRegistry.get(baseSymbol);
+
+			if (uom == null && anonymousBaseRegistry.size() > 0) {
+				uom = anonymousBaseRegistry.get(baseSymbol);
+			}
+			return uom;
+		}
+
+		// a unit registered for the base symbol, without counting the lookup
+		private UnitOfMeasure findBaseUOM(String baseSymbol) {
+			UnitOfMeasure uom = pinnedBaseRegistry.lookup(baseSymbol);
+
+			if (uom == null) {
+				uom = baseRegistry.lookup(baseSymbol);
+			}
+			return uom;
 		}
 
 		private void clearCache() {
+			pinnedSymbolRegistry.clear();
+			pinnedBaseRegistry.clear();
 			symbolRegistry.clear();
 			baseRegistry.clear();
 			unitRegistry.clear();
+			anonymousSymbolRegistry.clear();
+			anonymousBaseRegistry.clear();
+		}
+
+		private void install(List<UnitOfMeasure> registered, Map<String, UnitOfMeasure> baseUnits) {
+			for (UnitOfMeasure uom : registered) {
+				if (pinnedSymbolRegistry.lookup(uom.getSymbol()) == null && symbolRegistry.lookup(uom.getSymbol()) == null) {
+					(isPinned(uom) ? pinnedSymbolRegistry : symbolRegistry).put(uom.getSymbol(), uom);
+				}
+
+				if (uom.getEnumeration() != null && unitRegistry.lookup(uom.getEnumeration()) == null) {
+					unitRegistry.put(uom.getEnumeration(), uom);
+				}
+			}
+
+			for (Entry<String, UnitOfMeasure> entry : baseUnits.entrySet()) {
+				if (findBaseUOM(entry.getKey()) == null) {
+					UnitOfMeasure uom = entry.getValue();
+					(isPinned(uom) ? pinnedBaseRegistry : baseRegistry).put(entry.getKey(), uom);
+				}
+			}
+		}
+
+		// copy the registries of another cache manager
+		private void copy(CacheManager other) {
+			for (Entry<String, UnitOfMeasure> entry : other.pinnedSymbolRegistry.snapshot().entrySet()) {
+				pinnedSymbolRegistry.put(entry.getKey(), entry.getValue());
+			}
+
+			for (Entry<String, UnitOfMeasure> entry : other.pinnedBaseRegistry.snapshot().entrySet()) {
+				pinnedBaseRegistry.put(entry.getKey(), entry.getValue());
+			}
+
+			for (Entry<String, UnitOfMeasure> entry : other.symbolRegistry.snapshot().entrySet()) {
+				symbolRegistry.put(entry.getKey(), entry.getValue());
+			}
+
+			for (Entry<String, UnitOfMeasure> entry : other.baseRegistry.snapshot().entrySet()) {
+				baseRegistry.put(entry.getKey(), entry.getValue());
+			}
+
+			for (Entry<Unit, UnitOfMeasure> entry : other.unitRegistry.snapshot().entrySet()) {
+				unitRegistry.put(entry.getKey(), entry.getValue());
+			}
+
+			for (Entry<String, UnitOfMeasure> entry : other.anonymousSymbolRegistry.snapshot().entrySet()) {
+				anonymousSymbolRegistry.put(entry.getKey(), entry.getValue());
+			}
+
+			for (Entry<String, UnitOfMeasure> entry : other.anonymousBaseRegistry.snapshot().entrySet()) {
+				anonymousBaseRegistry.put(entry.getKey(), entry.getValue());
+			}
+		}
+
+		// move a registered unit that has become bridged out of reach of the
+		// cache policy
+		private void pin(UnitOfMeasure uom) throws Exception {
+			String symbol = uom.getSymbol();
+
+			if (symbolRegistry.lookup(symbol) == uom) {
+				symbolRegistry.remove(symbol);
+				pinnedSymbolRegistry.put(symbol, uom);
+			}
+
+			String baseSymbol = uom.getBaseSymbol();
+
+			if (baseRegistry.lookup(baseSymbol) == uom) {
+				baseRegistry.remove(baseSymbol);
+				pinnedBaseRegistry.put(baseSymbol, uom);
+			}
 		}
 
 		private Collection<UnitOfMeasure> getCachedUnits() {
-			return symbolRegistry.values();
+			List<UnitOfMeasure> units = new ArrayList<>(pinnedSymbolRegistry.snapshot().values());
+			units.addAll(symbolRegistry.snapshot().values());
+			units.addAll(anonymousSymbolRegistry.snapshot().values());
+			return units;
 		}
 
 		private Map<String, UnitOfMeasure> getSymbolCache() {
-			return symbolRegistry;
+			Map<String, UnitOfMeasure> cache = symbolRegistry.snapshot();
+			cache.putAll(pinnedSymbolRegistry.snapshot());
+			return cache;
 		}
 
 		private Map<String, UnitOfMeasure> getBaseSymbolCache() {
-			return baseRegistry;
+			Map<String, UnitOfMeasure> cache = baseRegistry.snapshot();
+			cache.putAll(pinnedBaseRegistry.snapshot());
+			return cache;
 		}
 
 		private Map<Unit, UnitOfMeasure> getEnumerationCache() {
-			return unitRegistry;
+			return unitRegistry.snapshot();
 		}
 
 		private void unregisterUnit(UnitOfMeasure uom) throws Exception {
@@ -2102,23 +2682,47 @@ public class MeasurementSystem {
 			}
 
 			// remove by symbol and base symbol
+			pinnedSymbolRegistry.remove(uom.getSymbol());
+			pinnedBaseRegistry.remove(uom.getBaseSymbol());
 			symbolRegistry.remove(uom.getSymbol());
 			baseRegistry.remove(uom.getBaseSymbol());
+			anonymousSymbolRegistry.remove(uom.getSymbol());
+			anonymousBaseRegistry.remove(uom.getBaseSymbol());
 		}
 
 		private void registerUnit(UnitOfMeasure uom) throws Exception {
 			String key = uom.getSymbol();
 
 			// get first by symbol
-			UnitOfMeasure current = symbolRegistry.get(key);
+			UnitOfMeasure current = pinnedSymbolRegistry.lookup(key);
+
+			if (current == null) {
+				current = symbolRegistry.lookup(key);
+			}
+
+			if (current == null) {
+				current = anonymousSymbolRegistry.lookup(key);
+			}
 
 			if (current != null) {
 				// already cached
 				return;
 			}
 
+			if (weakRegistration && uom.getName() == null && uom.getEnumeration() == null) {
+				// hold an anonymous unit only as long as it is in use
+				anonymousSymbolRegistry.put(key, uom);
+				key = uom.getBaseSymbol();
+
+				if (findBaseUOM(key) == null && anonymousBaseRegistry.lookup(key) == null) {
+					anonymousBaseRegistry.put(key, uom);
+				}
+				return;
+			}
+
 			// cache it
-			symbolRegistry.put(key, uom);
+			boolean pinned = isPinned(uom);
+			(pinned ? pinnedSymbolRegistry : symbolRegistry).put(key, uom);
 
 			// next by unit enumeration
 			Unit id = uom.getEnumeration();
@@ -2130,8 +2734,8 @@ public class MeasurementSystem {
 			// finally by base symbol
 			key = uom.getBaseSymbol();
 
-			if (baseRegistry.get(key) == null) {
-				baseRegistry.put(key, uom);
+			if (findBaseUOM(key) == null) {
+				(pinned ? pinnedBaseRegistry : baseRegistry).put(key, uom);
 			}
 		}
 	}
@@ -0,0 +1,313 @@
+/*
+MIT License
+
+Copyright (c) 2016 Kent Randall
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package org.point85.uom;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The NamedUnitIndex finds the named {@link UnitOfMeasure} that is equivalent
+ * to an anonymous product, quotient or power, e.g. the joule for N·m. Units are
+ * indexed by the base symbol and the scaling factor of their reduced form, so
+ * the kilowatt-hour is not mistaken for the joule. When more than one named
+ * unit has the same key, a pre-defined unit is preferred to a custom one, and
+ * then the one declared first in {@link Unit} or with the lower symbol. <br>
+ * Pre-defined units that have not been created yet are found through the
+ * {@link PredefinedUnits}, and only the unit found is created. The index of
+ * created units is built on first use. A registered or unregistered unit is then
+ * added to or removed from its key, and the index is only rebuilt after a unit
+ * that other units are composed of is redefined. Indexed units are weakly
+ * referenced. The simplification of an anonymous unit is cached with the unit
+ * itself, so it lives only as long as the unit.
+ *
+ * @author Kent Randall
+ *
+ */
+class NamedUnitIndex {
+	// significant digits of a scaling factor in a key
+	private static final int DIGITS = 12;
+
+	// system with the registered units
+	private final MeasurementSystem system;
+
+	// incremented when a named unit is registered or unregistered
+	private volatile long changes = 0L;
+
+	// named units by key, with the definition version they were keyed for
+	private volatile Index index;
+
+	NamedUnitIndex(MeasurementSystem system) {
+		this.system = system;
+	}
+
+	// the named unit equivalent to this unit, or the unit itself if there is none
+	UnitOfMeasure simplify(UnitOfMeasure uom) throws Exception {
+		if (isNamed(uom) || uom.getOffset() != 0.0d) {
+			return uom;
+		}
+
+		long stamp = getStamp();
+		Simplification cached = uom.getSimplification();
+
+		if (cached != null && cached.isCurrent(this, stamp, uom)) {
+			return cached.named;
+		}
+
+		UnitOfMeasure named = find(getKey(uom));
+
+		if (named == null) {
+			named = uom;
+		}
+		uom.setSimplification(new Simplification(this, stamp, uom, named));
+
+		return named;
+	}
+
+	// the named unit for the key in this system, or a pre-defined one in the
+	// system it extends
+	UnitOfMeasure find(String key) throws Exception {
+		UnitOfMeasure named = null;
+		List<WeakReference<UnitOfMeasure>> entries = getIndex().units.get(key);
+
+		if (entries != null) {
+			for (WeakReference<UnitOfMeasure> entry : entries) {
+				UnitOfMeasure uom = entry.get();
+
+				// skip a unit that has been redefined since it was indexed
+				if (uom != null && (named == null || isPreferred(uom, named)) && getKey(uom).equals(key)) {
+					named = uom;
+				}
+			}
+		}
+
+		if (system.getParent() != null) {
+			if (named == null) {
+				// this system's copy of a pre-defined unit
+				named = system.getPredefinedUOM(system.getParent().getNamedUnitIndex().find(key));
+			}
+		} else if (named == null || named.getEnumeration() == null) {
+			// a pre-defined unit is preferred, even if not created yet
+			UnitOfMeasure predefined = findPredefined(key);
+
+			if (predefined != null) {
+				named = predefined;
+			}
+		}
+		return named;
+	}
+
+	// the preferred pre-defined unit for the key, created if necessary
+	private UnitOfMeasure findPredefined(String key) throws Exception {
+		for (Unit unit : PredefinedUnits.getInstance().fromKey(key)) {
+			UnitOfMeasure uom = system.getUOM(unit);
+
+			// skip a unit that has been redefined in this system
+			if (uom.getOffset() == 0.0d && getKey(uom).equals(key)) {
+				return uom;
+			}
+		}
+		return null;
+	}
+
+	// a unit has been registered
+	synchronized void add(UnitOfMeasure uom) throws Exception {
+		if (!isNamed(uom) || uom.getOffset() != 0.0d) {
+			return;
+		}
+		changes++;
+
+		Index current = index;
+
+		if (current != null && current.version == system.getDefinitionVersion()) {
+			String key = getKey(uom);
+			List<WeakReference<UnitOfMeasure>> entries = copyEntries(current.units.get(key), uom);
+			entries.add(new WeakReference<>(uom));
+			current.units.put(key, entries);
+		}
+	}
+
+	// a unit has been unregistered
+	synchronized void remove(UnitOfMeasure uom) throws Exception {
+		if (!isNamed(uom)) {
+			return;
+		}
+		changes++;
+
+		Index current = index;
+
+		if (current != null && current.version == system.getDefinitionVersion()) {
+			String key = getKey(uom);
+			List<WeakReference<UnitOfMeasure>> entries = current.units.get(key);
+
+			if (entries != null) {
+				entries = copyEntries(entries, uom);
+
+				if (entries.isEmpty()) {
+					current.units.remove(key);
+				} else {
+					current.units.put(key, entries);
+				}
+			}
+		}
+	}
+
+	// the cache of registered units has been cleared
+	synchronized void reset() {
+		changes++;
+		index = null;
+	}
+
+	// changes when a named unit of this system or of the system it extends is
+	// registered or unregistered, or a unit definition of this system changes
+	private long getStamp() {
+		MeasurementSystem parent = system.getParent();
+		long stamp = changes + system.getDefinitionVersion();
+		return parent != null ? stamp + parent.getNamedUnitIndex().changes : stamp;
+	}
+
+	private Index getIndex() throws Exception {
+		long version = system.getDefinitionVersion();
+		Index current = index;
+
+		if (current != null && current.version == version) {
+			return current;
+		}
+
+		long indexChanges = changes;
+		Map<String, List<WeakReference<UnitOfMeasure>>> units = new ConcurrentHashMap<>();
+
+		for (UnitOfMeasure uom : system.getRegisteredUnits()) {
+			if (!isNamed(uom) || uom.getOffset() != 0.0d) {
+				continue;
+			}
+
+			String key = getKey(uom);
+			List<WeakReference<UnitOfMeasure>> entries = units.get(key);
+
+			if (entries == null) {
+				entries = new ArrayList<>(1);
+				units.put(key, entries);
+			}
+			entries.add(new WeakReference<>(uom));
+		}
+
+		current = new Index(units, version);
+
+		synchronized (this) {
+			// keep it unless a unit was registered or unregistered meanwhile
+			if (changes == indexChanges) {
+				index = current;
+			}
+		}
+		return current;
+	}
+
+	// copy the entries of a key without the unit and the collected units
+	private static List<WeakReference<UnitOfMeasure>> copyEntries(List<WeakReference<UnitOfMeasure>> entries,
+			UnitOfMeasure uom) {
+		List<WeakReference<UnitOfMeasure>> copy = new ArrayList<>(entries != null ? entries.size() + 1 : 1);
+
+		if (entries != null) {
+			for (WeakReference<UnitOfMeasure> entry : entries) {
+				UnitOfMeasure indexed = entry.get();
+
+				if (indexed != null && indexed != uom) {
+					copy.add(entry);
+				}
+			}
+		}
+		return copy;
+	}
+
+	// true if the unit has a name or is pre-defined
+	private static boolean isNamed(UnitOfMeasure uom) {
+		return uom.getName() != null || uom.getEnumeration() != null;
+	}
+
+	// true if the unit is preferred to the other one with the same key
+	private static boolean isPreferred(UnitOfMeasure uom, UnitOfMeasure other) {
+		Unit unit = uom.getEnumeration();
+		Unit otherUnit = other.getEnumeration();
+
+		if (unit != null && otherUnit != null) {
+			return unit.ordinal() < otherUnit.ordinal();
+		} else if (unit != null || otherUnit != null) {
+			return unit != null;
+		}
+		return uom.getSymbol().compareTo(other.getSymbol()) < 0;
+	}
+
+	// base symbol and rounded scaling factor of the reduced form
+	static String getKey(UnitOfMeasure uom) throws Exception {
+		ReducedForm form = uom.getReducedForm();
+		return form.getBaseSymbol() + ' ' + round(form.getScalingFactor());
+	}
+
+	// round to the significant digits
+	private static double round(double factor) {
+		if (factor == 0.0d || Double.isNaN(factor) || Double.isInfinite(factor)) {
+			return factor;
+		}
+		double scale = Math.pow(10.0d, DIGITS - 1 - Math.floor(Math.log10(Math.abs(factor))));
+		return Math.round(factor * scale) / scale;
+	}
+
+	// a simplified unit with the index stamp and reduced forms it was found for
+	static final class Simplification {
+		private final NamedUnitIndex index;
+		private final long stamp;
+		private final ReducedForm form;
+		private final UnitOfMeasure named;
+		private final ReducedForm namedForm;
+
+		private Simplification(NamedUnitIndex index, long stamp, UnitOfMeasure uom, UnitOfMeasure named)
+				throws Exception {
+			this.index = index;
+			this.stamp = stamp;
+			this.form = uom.getReducedForm();
+			this.named = named;
+			this.namedForm = named.getReducedForm();
+		}
+
+		// neither the index nor the units have changed since
+		private boolean isCurrent(NamedUnitIndex index, long stamp, UnitOfMeasure uom) throws Exception {
+			return this.index == index && this.stamp == stamp && uom.getReducedForm() == form
+					&& named.getReducedForm() == namedForm;
+		}
+	}
+
+	// named units by key for a definition version
+	private static final class Index {
+		private final Map<String, List<WeakReference<UnitOfMeasure>>> units;
+		private final long version;
+
+		private Index(Map<String, List<WeakReference<UnitOfMeasure>>> units, long version) {
+			this.units = units;
+			this.version = version;
+		}
+	}
+}
@@ -0,0 +1,121 @@
+/*
+MIT License
+
+Copyright (c) 2016 Kent Randall
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package org.point85.uom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The PredefinedUnits index the {@link Unit} enumerations by symbol and by the
+ * key of their reduced form, so that the {@link ExpressionParser} and the
+ * {@link NamedUnitIndex} can find a pre-defined unit that has not been created
+ * yet without creating every unit in a {@link MeasurementSystem}. <br>
+ * The index is built once per JVM from a private measurement system that is
+ * loaded from the {@link UnitCatalog}, or created from the unit definitions if
+ * there is no compatible catalog, and the private system is then discarded.
+ *
+ * @author Kent Randall
+ *
+ */
+final class PredefinedUnits {
+	// the index, built on first use
+	private static volatile PredefinedUnits instance;
+
+	// pre-defined units by symbol
+	private final Map<String, Unit> unitsBySymbol;
+
+	// named pre-defined units by key, the preferred one first
+	private final Map<String, List<Unit>> unitsByKey;
+
+	private PredefinedUnits(Map<String, Unit> unitsBySymbol, Map<String, List<Unit>> unitsByKey) {
+		this.unitsBySymbol = unitsBySymbol;
+		this.unitsByKey = unitsByKey;
+	}
+
+	static PredefinedUnits getInstance() throws Exception {
+		PredefinedUnits index = instance;
+
+		if (index == null) {
+			synchronized (PredefinedUnits.class) {
+				index = instance;
+
+				if (index == null) {
+					index = build();
+					instance = index;
+				}
+			}
+		}
+		return index;
+	}
+
+	// the pre-defined unit with the symbol, or null
+	Unit fromSymbol(String symbol) {
+		return unitsBySymbol.get(symbol);
+	}
+
+	// the named pre-defined units with the key, the preferred one first
+	List<Unit> fromKey(String key) {
+		List<Unit> units = unitsByKey.get(key);
+		return units != null ? units : Collections.<Unit>emptyList();
+	}
+
+	private static PredefinedUnits build() throws Exception {
+		MeasurementSystem scratch = MeasurementSystem.createPrivateSystem();
+		scratch.createAllUnits();
+
+		Map<String, Unit> unitsBySymbol = new HashMap<>();
+		Map<String, List<Unit>> unitsByKey = new HashMap<>();
+
+		for (UnitOfMeasure uom : scratch.getRegisteredUnits()) {
+			Unit unit = uom.getEnumeration();
+
+			if (unit == null) {
+				continue;
+			}
+			unitsBySymbol.put(uom.getSymbol(), unit);
+
+			if (uom.getOffset() != 0.0d) {
+				continue;
+			}
+
+			String key = NamedUnitIndex.getKey(uom);
+			List<Unit> units = unitsByKey.get(key);
+
+			if (units == null) {
+				units = new ArrayList<>(1);
+				unitsByKey.put(key, units);
+			}
+			units.add(unit);
+		}
+
+		// declared first is preferred
+		for (List<Unit> units : unitsByKey.values()) {
+			Collections.sort(units);
+		}
+		return new PredefinedUnits(unitsBySymbol, unitsByKey);
+	}
+}
@@ -25,16 +25,20 @@ SOFTWARE.
 package org.point85.uom;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * The Prefix class defines SI unit of measure prefixes as well as those found
  * in computer science.
  */
 public class Prefix {    
-	// list of pre-defined prefixes
-	private static List<Prefix> prefixes = Collections.synchronizedList(new ArrayList<>());
+	// immutable indexes of the pre-defined prefixes, replaced when a prefix is
+	// created
+	private static volatile Index index = new Index(Collections.emptyList());
 
 	// SI prefix 10^24
 	public static final Prefix YOTTA = new Prefix("yotta", "Y", 1.0E+24);
@@ -85,6 +89,13 @@ public class Prefix {
 	//
 	public static final Prefix GIBI = new Prefix("gibi", "Gi", 1.073741824E+09);
 
+	// engineering prefixes from 10^-24 to 10^24 in steps of 10^3, none for 10^0
+	static final Prefix[] ENGINEERING = { YOCTO, ZEPTO, ATTO, FEMTO, PICO, NANO, MICRO, MILLI, null, KILO, MEGA,
+			GIGA, TERA, PETA, EXA, ZETTA, YOTTA };
+
+	// binary prefixes from 2^0 to 2^30 in steps of 2^10, none for 2^0
+	static final Prefix[] BINARY = { null, KIBI, MEBI, GIBI };
+
 	// name
 	private String name;
 
@@ -109,7 +120,14 @@ public class Prefix {
 		this.symbol = symbol;
 		this.factor = factor;
 
-		prefixes.add(this);
+		register(this);
+	}
+
+	// add the prefix to a copy of the indexes
+	private static synchronized void register(Prefix prefix) {
+		List<Prefix> prefixes = new ArrayList<>(index.prefixes);
+		prefixes.add(prefix);
+		index = new Index(prefixes);
 	}
 
 	/**
@@ -147,41 +165,129 @@ public class Prefix {
 	 * @return {@link Prefix}
 	 */
 	public static Prefix fromName(String name) {
-		Prefix prefix = null;
-
-		for (Prefix p : prefixes) {
-			if (p.getName().equals(name)) {
-				prefix = p;
-				break;
-			}
-		}
+		return index.byName.get(name);
+	}
 
-		return prefix;
+	/**
+	 * Find the prefix with the specified symbol
+	 * 
+	 * @param symbol
+	 *            Symbol of prefix
+	 * @return {@link Prefix}
+	 */
+	public static Prefix fromSymbol(String symbol) {
+		return index.bySymbol.get(symbol);
 	}
 
 	/**
-	 * Find the prefix with the specified scaling factor
+	 * Find the prefix with the specified scaling factor. The factor must be
+	 * equal to that of the prefix within a relative tolerance, so that factors
+	 * as small as 1.0E-24 can be told apart.
 	 * 
 	 * @param factor
 	 *            Scaling factor
 	 * @return {@link Prefix}
 	 */
 	public static Prefix fromFactor(double factor) {
-	    for (Prefix p : prefixes) {
-	        if (Math.abs(p.getFactor() - factor) < MeasurementSystem.EPSILON) {
-	            return p;
-	        }
-	    }
-	    return null;
+		if (!(factor > 0.0d) || Double.isInfinite(factor)) {
+			return null;
+		}
+
+		Index current = index;
+		int i = Arrays.binarySearch(current.exponents, Math.log10(factor));
+
+		if (i >= 0) {
+			return current.byExponent[i];
+		}
+
+		// the nearest prefixes below and above the insertion point
+		int insertion = -i - 1;
+
+		for (int j = insertion - 1; j <= insertion; j++) {
+			if (j >= 0 && j < current.byExponent.length && current.byExponent[j].isFactor(factor)) {
+				return current.byExponent[j];
+			}
+		}
+		return null;
+	}
+
+	// true if the factor is equal to this prefix's factor within a relative
+	// tolerance
+	private boolean isFactor(double otherFactor) {
+		return Math.abs(factor - otherFactor) <= MeasurementSystem.EPSILON * Math.abs(factor);
+	}
+
+	// the length of the longest prefix symbol
+	static int getMaxSymbolLength() {
+		return index.maxSymbolLength;
 	}
 
 	/**
 	 * Get the list of pre-defined prefixes
 	 * 
-	 * @return Prefix list
+	 * @return Unmodifiable prefix list
 	 */
 	public static List<Prefix> getDefinedPrefixes() {
-		return prefixes;
+		return index.prefixes;
+	}
+
+	// lookups by name, symbol and factor
+	private static final class Index {
+		// all prefixes in order of creation
+		private final List<Prefix> prefixes;
+
+		// the first prefix with a name
+		private final Map<String, Prefix> byName = new HashMap<>();
+
+		// the first prefix with a symbol
+		private final Map<String, Prefix> bySymbol = new HashMap<>();
+
+		// base 10 logarithms of the distinct factors in ascending order
+		private final double[] exponents;
+
+		// the first prefix with each factor, in the same order
+		private final Prefix[] byExponent;
+
+		// the length of the longest symbol
+		private final int maxSymbolLength;
+
+		private Index(List<Prefix> prefixes) {
+			this.prefixes = Collections.unmodifiableList(prefixes);
+
+			List<Prefix> distinct = new ArrayList<>();
+			int maxLength = 0;
+
+			for (Prefix prefix : prefixes) {
+				byName.putIfAbsent(prefix.getName(), prefix);
+				bySymbol.putIfAbsent(prefix.getSymbol(), prefix);
+				if (prefix.getSymbol() != null) {
+					maxLength = Math.max(maxLength, prefix.getSymbol().length());
+				}
+
+				boolean isDistinct = prefix.getFactor() > 0.0d;
+
+				for (Prefix other : distinct) {
+					if (other.isFactor(prefix.getFactor())) {
+						isDistinct = false;
+						break;
+					}
+				}
+
+				if (isDistinct) {
+					distinct.add(prefix);
+				}
+			}
+
+			distinct.sort((p1, p2) -> Double.compare(p1.getFactor(), p2.getFactor()));
+
+			exponents = new double[distinct.size()];
+			byExponent = distinct.toArray(new Prefix[0]);
+
+			for (int i = 0; i < byExponent.length; i++) {
+				exponents[i] = Math.log10(byExponent[i].getFactor());
+			}
+			maxSymbolLength = maxLength;
+		}
 	}
 
 	/**
@@ -25,9 +25,11 @@ package org.point85.uom;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.DoubleBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 
 /**
  * The Quantity class represents an amount and {@link UnitOfMeasure}. A constant
@@ -209,6 +211,15 @@ public class Quantity extends Symbolic {
 		return uom;
 	}
 
+	/**
+	 * Create a measure with the amount and unit of measure of this quantity
+	 * 
+	 * @return {@link Measure}
+	 */
+	public Measure toMeasure() {
+		return new Measure(amount, uom);
+	}
+
 	/**
 	 * Subtract a quantity from this quantity
 	 * 
@@ -296,7 +307,7 @@ public class Quantity extends Symbolic {
 	 */
 	public Quantity power(int exponent) throws Exception {
 		double newAmount = Math.pow(getAmount(), exponent);
-		UnitOfMeasure newUOM = MeasurementSystem.getSystem().createPowerUOM(getUOM(), exponent);
+		UnitOfMeasure newUOM = getUOM().getMeasurementSystem().createPowerUOM(getUOM(), exponent);
 
 		return new Quantity(newAmount, newUOM);
 	}
@@ -352,6 +363,72 @@ public class Quantity extends Symbolic {
 		return new Quantity(newAmount, toUOM);
 	}
 
+	/**
+	 * Convert this quantity to the target UOM if the units of measure are
+	 * compatible. No exception is created for incompatible units, so this is
+	 * suitable for probing many conversions.
+	 * 
+	 * @param toUOM {@link UnitOfMeasure}
+	 * @return Converted quantity, or empty if this quantity cannot be converted
+	 */
+	public Optional<Quantity> tryConvert(UnitOfMeasure toUOM) {
+		double multiplier = getUOM().tryConversionFactor(toUOM);
+
+		if (Double.isNaN(multiplier)) {
+			return Optional.empty();
+		}
+
+		// same math as convert()
+		double newAmount = (getAmount() + getUOM().getOffset()) * multiplier - toUOM.getOffset();
+		return Optional.of(new Quantity(newAmount, toUOM));
+	}
+
+	/**
+	 * Convert an array of amounts from one unit of measure to another
+	 * 
+	 * @param src     Amounts in the from unit of measure
+	 * @param fromUOM {@link UnitOfMeasure} to convert from
+	 * @param toUOM   {@link UnitOfMeasure} to convert to
+	 * @param dst     Converted amounts
+	 * @throws Exception Exception
+	 */
+	public static void convert(double[] src, UnitOfMeasure fromUOM, UnitOfMeasure toUOM, double[] dst)
+			throws Exception {
+		fromUOM.getConversionPlan(toUOM).convert(src, dst);
+	}
+
+	/**
+	 * Convert a range of an array of amounts from one unit of measure to another
+	 * 
+	 * @param src     Amounts in the from unit of measure
+	 * @param srcPos  Starting position in the source array
+	 * @param fromUOM {@link UnitOfMeasure} to convert from
+	 * @param toUOM   {@link UnitOfMeasure} to convert to
+	 * @param dst     Converted amounts
+	 * @param dstPos  Starting position in the destination array
+	 * @param length  Number of amounts to convert
+	 * @throws Exception Exception
+	 */
+	public static void convert(double[] src, int srcPos, UnitOfMeasure fromUOM, UnitOfMeasure toUOM, double[] dst,
+			int dstPos, int length) throws Exception {
+		fromUOM.getConversionPlan(toUOM).convert(src, srcPos, dst, dstPos, length);
+	}
+
+	/**
+	 * Convert the remaining amounts in a buffer from one unit of measure to
+	 * another
+	 * 
+	 * @param src     Amounts in the from unit of measure
+	 * @param fromUOM {@link UnitOfMeasure} to convert from
+	 * @param toUOM   {@link UnitOfMeasure} to convert to
+	 * @param dst     Converted amounts
+	 * @throws Exception Exception
+	 */
+	public static void convert(DoubleBuffer src, UnitOfMeasure fromUOM, UnitOfMeasure toUOM, DoubleBuffer dst)
+			throws Exception {
+		fromUOM.getConversionPlan(toUOM).convert(src, dst);
+	}
+
 	/**
 	 * Convert this quantity to a list of quantities for each target UOM
 	 * 
@@ -427,7 +504,7 @@ public class Quantity extends Symbolic {
 	 * @throws Exception Exception
 	 */
 	public Quantity convert(Unit unit) throws Exception {
-		return convert(MeasurementSystem.getSystem().getUOM(unit));
+		return convert(getUOM().getMeasurementSystem().getUOM(unit));
 	}
 
 	/**
@@ -439,7 +516,89 @@ public class Quantity extends Symbolic {
 	 * @throws Exception Exception
 	 */
 	public Quantity convert(Prefix prefix, Unit unit) throws Exception {
-		return convert(MeasurementSystem.getSystem().getUOM(prefix, unit));
+		return convert(getUOM().getMeasurementSystem().getUOM(prefix, unit));
+	}
+
+	/**
+	 * Replace an anonymous unit of measure created by arithmetic with the
+	 * registered named unit that has the same base units and scaling factor,
+	 * e.g. N·m becomes J. The amount is unchanged. A quantity whose unit is
+	 * already named, or has no named equivalent, is returned as is.
+	 * 
+	 * @return {@link Quantity}
+	 * @throws Exception Exception
+	 */
+	public Quantity simplify() throws Exception {
+		UnitOfMeasure uom = getUOM();
+		UnitOfMeasure named = uom.getMeasurementSystem().getNamedUnitIndex().simplify(uom);
+		return named == uom ? this : new Quantity(getAmount(), named);
+	}
+
+	/**
+	 * Rescale this quantity by the engineering {@link Prefix} (10^3n) that puts
+	 * the amount in the range [1, 1000), e.g. 1500 m becomes 1.5 km and 0.002 km
+	 * becomes 2 m. The prefixed unit is created once and then reused. A quantity
+	 * with an offset unit or with a zero or non-finite amount is returned as is.
+	 * 
+	 * @return {@link Quantity}
+	 * @throws Exception Exception
+	 */
+	public Quantity autoScale() throws Exception {
+		return autoScale(false);
+	}
+
+	/**
+	 * Rescale this quantity by the {@link Prefix} that puts the amount in the
+	 * range [1, 1000) for engineering prefixes or [1, 1024) for the binary
+	 * prefixes KIBI, MEBI and GIBI, e.g. 2048 bytes becomes 2 KiB.
+	 * 
+	 * @param binary If true, use the binary prefixes
+	 * @return {@link Quantity}
+	 * @throws Exception Exception
+	 */
+	public Quantity autoScale(boolean binary) throws Exception {
+		UnitOfMeasure uom = getUOM();
+		double amount = getAmount();
+
+		if (uom.getOffset() != 0.0d || amount == 0.0d || Double.isNaN(amount) || Double.isInfinite(amount)) {
+			return this;
+		}
+
+		// strip any prefix, e.g. km to m
+		Prefix prefix = uom.getPrefix();
+
+		while (prefix != null) {
+			amount = amount * prefix.getFactor();
+			uom = uom.getPrefixTarget();
+			prefix = uom.getPrefix();
+		}
+
+		// the exponent of the scaling prefix
+		Prefix[] prefixes = binary ? Prefix.BINARY : Prefix.ENGINEERING;
+		int zero = binary ? 0 : prefixes.length / 2;
+		double magnitude = Math.abs(amount);
+		double exponent = binary ? Math.log(magnitude) / Math.log(1024.0d) : Math.log10(magnitude) / 3.0d;
+		int index = zero + (int) Math.floor(exponent);
+		index = Math.max(0, Math.min(prefixes.length - 1, index));
+
+		// correct for rounding of the logarithm
+		if (index > 0 && magnitude < getFactor(prefixes[index])) {
+			index--;
+		} else if (index < prefixes.length - 1 && magnitude >= getFactor(prefixes[index + 1])) {
+			index++;
+		}
+
+		prefix = prefixes[index];
+
+		if (prefix == null) {
+			return uom == getUOM() ? this : new Quantity(amount, uom);
+		}
+		return new Quantity(amount / prefix.getFactor(), uom.getMeasurementSystem().getUOM(prefix, uom));
+	}
+
+	// scaling factor of the prefix, 1 if none
+	private static double getFactor(Prefix prefix) {
+		return prefix != null ? prefix.getFactor() : 1.0d;
 	}
 
 	/**
@@ -0,0 +1,254 @@
+/*
+MIT License
+
+Copyright (c) 2016 Kent Randall
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package org.point85.uom;
+
+import java.text.MessageFormat;
+import java.util.Arrays;
+
+/**
+ * A QuantityColumn holds a column of amounts in a double array that all share
+ * one {@link UnitOfMeasure}, e.g. the readings of a sensor. Compared to a list
+ * of {@link Quantity} objects, a column needs only 8 bytes per amount and its
+ * loops can be vectorized by the JIT compiler. <br>
+ * Conversions use a {@link ConversionPlan}, so the amounts are converted with
+ * the same factor and offsets as {@link Quantity#convert(UnitOfMeasure)}.
+ * 
+ * @author Kent Randall
+ *
+ */
+public class QuantityColumn {
+	// the amounts
+	private final double[] amounts;
+
+	// and their unit of measure
+	private UnitOfMeasure uom;
+
+	/**
+	 * Create a column of zero amounts
+	 * 
+	 * @param size Number of amounts
+	 * @param uom  {@link UnitOfMeasure}
+	 */
+	public QuantityColumn(int size, UnitOfMeasure uom) {
+		this(new double[size], uom);
+	}
+
+	/**
+	 * Create a column backed by the array of amounts. The array is not copied.
+	 * 
+	 * @param amounts Amounts
+	 * @param uom     {@link UnitOfMeasure}
+	 */
+	public QuantityColumn(double[] amounts, UnitOfMeasure uom) {
+		this.amounts = amounts;
+		this.uom = uom;
+	}
+
+	/**
+	 * Get the number of amounts
+	 * 
+	 * @return Size
+	 */
+	public int size() {
+		return amounts.length;
+	}
+
+	/**
+	 * Get the unit of measure of the amounts
+	 * 
+	 * @return {@link UnitOfMeasure}
+	 */
+	public UnitOfMeasure getUOM() {
+		return uom;
+	}
+
+	/**
+	 * Get the amount at the index
+	 * 
+	 * @param index Index
+	 * @return Amount
+	 */
+	public double getAmount(int index) {
+		return amounts[index];
+	}
+
+	/**
+	 * Set the amount at the index
+	 * 
+	 * @param index  Index
+	 * @param amount Amount
+	 */
+	public void setAmount(int index, double amount) {
+		amounts[index] = amount;
+	}
+
+	/**
+	 * Get the quantity at the index
+	 * 
+	 * @param index Index
+	 * @return {@link Quantity}
+	 */
+	public Quantity get(int index) {
+		return new Quantity(amounts[index], uom);
+	}
+
+	/**
+	 * Get a copy of the amounts
+	 * 
+	 * @return Amounts
+	 */
+	public double[] toArray() {
+		return amounts.clone();
+	}
+
+	private void checkNotEmpty() throws Exception {
+		if (amounts.length == 0) {
+			throw new Exception(MeasurementSystem.getMessage("column.is.empty"));
+		}
+	}
+
+	/**
+	 * Sum the amounts
+	 * 
+	 * @return Sum {@link Quantity}
+	 */
+	public Quantity sum() {
+		double sum = 0.0d;
+
+		for (int i = 0; i < amounts.length; i++) {
+			sum += amounts[i];
+		}
+		return new Quantity(sum, uom);
+	}
+
+	/**
+	 * Find the smallest amount
+	 * 
+	 * @return Minimum {@link Quantity}
+	 * @throws Exception If the column is empty
+	 */
+	public Quantity min() throws Exception {
+		checkNotEmpty();
+
+		double min = amounts[0];
+
+		for (int i = 1; i < amounts.length; i++) {
+			min = Math.min(min, amounts[i]);
+		}
+		return new Quantity(min, uom);
+	}
+
+	/**
+	 * Find the largest amount
+	 * 
+	 * @return Maximum {@link Quantity}
+	 * @throws Exception If the column is empty
+	 */
+	public Quantity max() throws Exception {
+		checkNotEmpty();
+
+		double max = amounts[0];
+
+		for (int i = 1; i < amounts.length; i++) {
+			max = Math.max(max, amounts[i]);
+		}
+		return new Quantity(max, uom);
+	}
+
+	/**
+	 * Compute the arithmetic mean of the amounts
+	 * 
+	 * @return Mean {@link Quantity}
+	 * @throws Exception If the column is empty
+	 */
+	public Quantity mean() throws Exception {
+		checkNotEmpty();
+		return new Quantity(sum().getAmount() / amounts.length, uom);
+	}
+
+	/**
+	 * Convert the amounts of this column to the target unit of measure in place
+	 * 
+	 * @param toUOM {@link UnitOfMeasure}
+	 * @return This column
+	 * @throws Exception Exception
+	 */
+	public QuantityColumn convertTo(UnitOfMeasure toUOM) throws Exception {
+		if (toUOM != uom) {
+			uom.getConversionPlan(toUOM).convert(amounts, amounts);
+			uom = toUOM;
+		}
+		return this;
+	}
+
+	/**
+	 * Add the amounts of the other column to the amounts of this column. The
+	 * other column's amounts are first converted to this column's unit of
+	 * measure.
+	 * 
+	 * @param other {@link QuantityColumn} of the same size
+	 * @return New column in this column's unit of measure
+	 * @throws Exception Exception
+	 */
+	public QuantityColumn add(QuantityColumn other) throws Exception {
+		if (other.size() != size()) {
+			String msg = MessageFormat.format(MeasurementSystem.getMessage("column.sizes.differ"), size(),
+					other.size());
+			throw new Exception(msg);
+		}
+
+		double[] sums = new double[amounts.length];
+
+		if (other.uom != uom) {
+			// align the units
+			other.uom.getConversionPlan(uom).convert(other.amounts, sums);
+		} else {
+			System.arraycopy(other.amounts, 0, sums, 0, sums.length);
+		}
+
+		for (int i = 0; i < sums.length; i++) {
+			sums[i] += amounts[i];
+		}
+		return new QuantityColumn(sums, uom);
+	}
+
+	/**
+	 * Copy a range of the amounts into a new column
+	 * 
+	 * @param from Index of the first amount (inclusive)
+	 * @param to   Index of the last amount (exclusive)
+	 * @return New {@link QuantityColumn}
+	 */
+	public QuantityColumn slice(int from, int to) {
+		return new QuantityColumn(Arrays.copyOfRange(amounts, from, to), uom);
+	}
+
+	/**
+	 * Create a String representation of this QuantityColumn
+	 */
+	@Override
+	public String toString() {
+		return amounts.length + " x [" + uom + "]";
+	}
+}
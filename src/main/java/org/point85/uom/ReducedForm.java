@@ -0,0 +1,289 @@
+/*
+MIT License
+
+Copyright (c) 2016 Kent Randall
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package org.point85.uom;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A ReducedForm is a unit of measure reduced to its most basic scalar units of
+ * measure. It is a vector of integral exponents over those base units, sorted
+ * by symbol, together with an overall scaling factor. For example, a Newton
+ * reduces to (kg, 1), (m, 1), (s, -2) with a factor of 1. <br>
+ * A ReducedForm is immutable. Each {@link UnitOfMeasure} computes its reduced
+ * form once and caches it until the definition of the unit or of a unit that
+ * it is composed of changes.
+ *
+ * @author Kent Randall
+ *
+ */
+final class ReducedForm {
+	// multiply, divide and power symbols
+	private static final char MULT = (char) 0xB7;
+	private static final char DIV = '/';
+	private static final char POW = '^';
+	private static final char SQ = (char) 0xB2;
+	private static final char CUBED = (char) 0xB3;
+	private static final char LP = '(';
+	private static final char RP = ')';
+	private static final char ONE_CHAR = '1';
+
+	// base units of measure sorted by symbol
+	private final UnitOfMeasure[] units;
+
+	// exponent of each base unit of measure
+	private final int[] exponents;
+
+	// the overall scaling factor
+	private final double scalingFactor;
+
+	// the base symbol built from the units and exponents
+	private final String baseSymbol;
+
+	// definition version this form was computed for
+	private final long version;
+
+	// a bit for the unit type of each base unit of measure
+	private final long typeMask;
+
+	private ReducedForm(UnitOfMeasure[] units, int[] exponents, double scalingFactor, String baseSymbol,
+			long version) {
+		this.units = units;
+		this.exponents = exponents;
+		this.scalingFactor = scalingFactor;
+		this.baseSymbol = baseSymbol;
+		this.version = version;
+
+		long mask = 0L;
+		for (UnitOfMeasure unit : units) {
+			mask |= 1L << unit.getUnitType().ordinal();
+		}
+		this.typeMask = mask;
+	}
+
+	// reduced form of a terminal scalar unit (or an empty form for unity)
+	static ReducedForm ofBase(UnitOfMeasure base, boolean isOne, long version) {
+		UnitOfMeasure[] units = isOne ? new UnitOfMeasure[0] : new UnitOfMeasure[] { base };
+		int[] exponents = isOne ? new int[0] : new int[] { 1 };
+		return new ReducedForm(units, exponents, 1.0d, buildBaseSymbol(units, exponents), version);
+	}
+
+	// the product of two reduced forms raised to their exponents
+	static ReducedForm combine(ReducedForm form1, int exponent1, ReducedForm form2, int exponent2, long version) {
+		double factor = applyPower(1.0d, form1.scalingFactor, exponent1);
+
+		UnitOfMeasure[] units2 = new UnitOfMeasure[0];
+		int[] exponents2 = new int[0];
+
+		if (form2 != null) {
+			units2 = form2.units;
+			exponents2 = form2.exponents;
+			factor = applyPower(factor, form2.scalingFactor, exponent2);
+		}
+
+		// merge the two unit arrays, both sorted by symbol
+		int count1 = form1.units.length;
+		int count2 = units2.length;
+		UnitOfMeasure[] units = new UnitOfMeasure[count1 + count2];
+		int[] exponents = new int[count1 + count2];
+
+		int i = 0;
+		int j = 0;
+		int size = 0;
+
+		while (i < count1 || j < count2) {
+			int order;
+
+			if (i == count1) {
+				order = 1;
+			} else if (j == count2) {
+				order = -1;
+			} else {
+				order = form1.units[i].compareTo(units2[j]);
+
+				if (order == 0 && !form1.units[i].equals(units2[j])) {
+					// different units with the same symbol are kept apart
+					order = -1;
+				}
+			}
+
+			UnitOfMeasure unit;
+			int exponent;
+
+			if (order < 0) {
+				unit = form1.units[i];
+				exponent = form1.exponents[i++] * exponent1;
+			} else if (order > 0) {
+				unit = units2[j];
+				exponent = exponents2[j++] * exponent2;
+			} else {
+				unit = form1.units[i];
+				exponent = form1.exponents[i++] * exponent1 + exponents2[j++] * exponent2;
+			}
+
+			// drop cancelled terms
+			if (exponent != 0) {
+				units[size] = unit;
+				exponents[size] = exponent;
+				size++;
+			}
+		}
+
+		if (size < units.length) {
+			units = Arrays.copyOf(units, size);
+			exponents = Arrays.copyOf(exponents, size);
+		}
+		return new ReducedForm(units, exponents, factor, buildBaseSymbol(units, exponents), version);
+	}
+
+	// multiply or divide the accumulated factor by the factor raised to the power
+	private static double applyPower(double accumulated, double factor, int exponent) {
+		double power = 1.0d;
+		for (int i = 0; i < Math.abs(exponent); i++) {
+			power = power * factor;
+		}
+		return exponent < 0 ? accumulated / power : accumulated * power;
+	}
+
+	// this reduced form with the scaling factor multiplied by the factor
+	ReducedForm scale(double factor, long version) {
+		return new ReducedForm(units, exponents, scalingFactor * factor, baseSymbol, version);
+	}
+
+	int size() {
+		return units.length;
+	}
+
+	UnitOfMeasure getUnit(int index) {
+		return units[index];
+	}
+
+	int getExponent(int index) {
+		return exponents[index];
+	}
+
+	double getScalingFactor() {
+		return scalingFactor;
+	}
+
+	String getBaseSymbol() {
+		return baseSymbol;
+	}
+
+	long getVersion() {
+		return version;
+	}
+
+	// true if each base unit of measure has a unit type in the other form, so a
+	// conversion factor can be computed between the forms
+	boolean isConvertibleTo(ReducedForm other) {
+		return units.length == other.units.length && (typeMask & ~other.typeMask) == 0L;
+	}
+
+	// a new mutable map of base units of measure and exponents
+	Map<UnitOfMeasure, Integer> getTerms() {
+		Map<UnitOfMeasure, Integer> terms = new HashMap<>();
+
+		for (int i = 0; i < units.length; i++) {
+			terms.merge(units[i], exponents[i], Integer::sum);
+		}
+		return terms;
+	}
+
+	// compose the base symbol
+	private static String buildBaseSymbol(UnitOfMeasure[] units, int[] exponents) {
+		StringBuilder numerator = new StringBuilder();
+		StringBuilder denominator = new StringBuilder();
+
+		int numeratorCount = 0;
+		int denominatorCount = 0;
+
+		for (int i = 0; i < units.length; i++) {
+			UnitOfMeasure keyUnit = units[i];
+			int power = exponents[i];
+
+			if (power < 0) {
+				// negative, put in denominator
+				if (denominator.length() > 0) {
+					denominator.append(MULT);
+				}
+
+				denominator.append(keyUnit.getSymbol());
+				denominatorCount++;
+
+				if (power < -1) {
+					if (power == -2) {
+						denominator.append(SQ);
+					} else if (power == -3) {
+						denominator.append(CUBED);
+					} else {
+						denominator.append(POW).append(Math.abs(power));
+					}
+				}
+			} else {
+				// positive, put in numerator
+				if (numerator.length() > 0) {
+					numerator.append(MULT);
+				}
+
+				numerator.append(keyUnit.getSymbol());
+				numeratorCount++;
+
+				if (power > 1) {
+					if (power == 2) {
+						numerator.append(SQ);
+					} else if (power == 3) {
+						numerator.append(CUBED);
+					} else {
+						numerator.append(POW).append(power);
+					}
+				}
+			}
+		}
+
+		if (numeratorCount == 0) {
+			numerator.append(ONE_CHAR);
+		}
+
+		String result = null;
+
+		if (denominatorCount == 0) {
+			result = numerator.toString();
+		} else {
+			if (denominatorCount == 1) {
+				result = numerator.append(DIV).append(denominator).toString();
+			} else {
+				result = numerator.append(DIV).append(LP).append(denominator).append(RP).toString();
+			}
+		}
+
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return scalingFactor + ", " + baseSymbol;
+	}
+}
@@ -0,0 +1,142 @@
+/*
+MIT License
+
+Copyright (c) 2016 Kent Randall
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package org.point85.uom;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The ResultCache interns the units of measure created by multiplying and
+ * dividing units of measure, so that repeating an operation returns the same
+ * unit, along with the conversion factors already cached by it. <br>
+ * An entry is keyed by the two operands and the operation. It records the
+ * definition version it was created for and is ignored once a unit that it
+ * depends on has been redefined. It also records the unit that was registered
+ * for its base symbol, and is ignored once a different unit (or none) is
+ * registered for it, so registering a unit does not clear the cache. When the
+ * cache reaches its maximum size, it is cleared. A result that is changed by
+ * its caller is removed.
+ *
+ * @author Kent Randall
+ *
+ */
+class ResultCache {
+	// maximum number of cached results
+	static final int MAX_SIZE = 4096;
+
+	// operations
+	static final char MULTIPLY = '*';
+	static final char DIVIDE = '/';
+
+	// system that registers the units by base symbol
+	private final MeasurementSystem system;
+
+	// cached results
+	private final Map<Key, Entry> results = new ConcurrentHashMap<>();
+
+	ResultCache(MeasurementSystem system) {
+		this.system = system;
+	}
+
+	// get the cached result or null if not cached for this definition version
+	// and the currently registered base unit
+	UnitOfMeasure get(UnitOfMeasure uom1, UnitOfMeasure uom2, char operation, long version) {
+		Entry entry = results.get(new Key(uom1, uom2, operation));
+
+		if (entry == null || entry.version != version || system.getBaseUOM(entry.baseSymbol) != entry.baseUOM) {
+			return null;
+		}
+		return entry.result;
+	}
+
+	// cache the result
+	void put(UnitOfMeasure uom1, UnitOfMeasure uom2, char operation, long version, String baseSymbol,
+			UnitOfMeasure baseUOM, UnitOfMeasure result) {
+		if (results.size() >= MAX_SIZE) {
+			results.clear();
+		}
+		results.put(new Key(uom1, uom2, operation), new Entry(result, version, baseSymbol, baseUOM));
+	}
+
+	// remove a result that is being changed
+	void remove(UnitOfMeasure result) {
+		results.values().removeIf(entry -> entry.result == result);
+	}
+
+	void clear() {
+		results.clear();
+	}
+
+	int size() {
+		return results.size();
+	}
+
+	// the operands and operation
+	private static final class Key {
+		private final UnitOfMeasure uom1;
+		private final UnitOfMeasure uom2;
+		private final char operation;
+
+		private Key(UnitOfMeasure uom1, UnitOfMeasure uom2, char operation) {
+			this.uom1 = uom1;
+			this.uom2 = uom2;
+			this.operation = operation;
+		}
+
+		@Override
+		public int hashCode() {
+			return (31 * uom1.hashCode() + uom2.hashCode()) * 31 + operation;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+
+			if (!(other instanceof Key)) {
+				return false;
+			}
+
+			Key that = (Key) other;
+			return operation == that.operation && uom1.equals(that.uom1) && uom2.equals(that.uom2);
+		}
+	}
+
+	// the result, the definition version it was created for and the unit
+	// registered for its base symbol at that time
+	private static final class Entry {
+		private final UnitOfMeasure result;
+		private final long version;
+		private final String baseSymbol;
+		private final UnitOfMeasure baseUOM;
+
+		private Entry(UnitOfMeasure result, long version, String baseSymbol, UnitOfMeasure baseUOM) {
+			this.result = result;
+			this.version = version;
+			this.baseSymbol = baseSymbol;
+			this.baseUOM = baseUOM;
+		}
+	}
+}
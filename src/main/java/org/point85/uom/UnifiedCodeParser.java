@@ -0,0 +1,436 @@
+/*
+MIT License
+
+Copyright (c) 2016 Kent Randall
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package org.point85.uom;
+import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The UnifiedCodeParser creates a {@link UnitOfMeasure} from an expression in
+ * the Unified Code for Units of Measure (UCUM), e.g. "[psi]", "[in_i'Hg]",
+ * "kg.m/s2", "10*3/uL" or "mmol{creat}/L". The codes of the pre-defined units
+ * are read once from the UnifiedCode resource bundle into an index by code.
+ * The expression syntax is:
+ * <ul>
+ * <li>multiplication: '.'</li>
+ * <li>division: '/', including a leading '/' for a reciprocal</li>
+ * <li>an integral exponent after a unit, e.g. "m2" or "s-1"</li>
+ * <li>a UCUM prefix before a unit code, e.g. "cm" or "u" for micro</li>
+ * <li>a number or a power of 10 such as "10*3" or "10^-6"</li>
+ * <li>an annotation in braces, which is ignored</li>
+ * <li>grouping with '(' and ')'</li>
+ * </ul>
+ * Parsed expressions are cached in the same way as by the
+ * {@link ExpressionParser}.
+ *
+ * @author Kent Randall
+ *
+ */
+class UnifiedCodeParser {
+	// name of resource bundle with the UCUM codes of the pre-defined units
+	private static final String CODE_BUNDLE_NAME = "UnifiedCode";
+
+	// maximum number of cached expressions
+	static final int MAX_SIZE = 1024;
+
+	// operators
+	private static final char MULT = '.';
+	private static final char DIV = '/';
+	private static final char LP = '(';
+	private static final char RP = ')';
+	private static final char LB = '[';
+	private static final char RB = ']';
+	private static final char LA = '{';
+	private static final char RA = '}';
+	private static final char STAR = '*';
+	private static final char POW = '^';
+	private static final char PLUS = '+';
+	private static final char MINUS = '-';
+
+	// pre-defined units by UCUM code
+	private static final Map<String, Unit> UNITS_BY_CODE;
+
+	// preferred UCUM code by pre-defined unit
+	private static final Map<Unit, String> CODES_BY_UNIT;
+
+	// UCUM prefixes
+	private static final Map<String, Prefix> PREFIXES;
+
+	static {
+		Map<String, Unit> unitsByCode = new HashMap<>();
+		Map<Unit, String> codesByUnit = new EnumMap<>(Unit.class);
+		ResourceBundle bundle = ResourceBundle.getBundle(CODE_BUNDLE_NAME);
+
+		for (Enumeration<String> keys = bundle.getKeys(); keys.hasMoreElements();) {
+			String key = keys.nextElement();
+			Unit unit = Unit.valueOf(key);
+			String[] codes = bundle.getString(key).trim().split(" +");
+
+			for (String code : codes) {
+				unitsByCode.put(code, unit);
+			}
+			codesByUnit.put(unit, codes[0]);
+		}
+		UNITS_BY_CODE = Collections.unmodifiableMap(unitsByCode);
+		CODES_BY_UNIT = Collections.unmodifiableMap(codesByUnit);
+
+		Map<String, Prefix> prefixes = new HashMap<>();
+		prefixes.put("Y", Prefix.YOTTA);
+		prefixes.put("Z", Prefix.ZETTA);
+		prefixes.put("E", Prefix.EXA);
+		prefixes.put("P", Prefix.PETA);
+		prefixes.put("T", Prefix.TERA);
+		prefixes.put("G", Prefix.GIGA);
+		prefixes.put("M", Prefix.MEGA);
+		prefixes.put("k", Prefix.KILO);
+		prefixes.put("h", Prefix.HECTO);
+		prefixes.put("da", Prefix.DEKA);
+		prefixes.put("d", Prefix.DECI);
+		prefixes.put("c", Prefix.CENTI);
+		prefixes.put("m", Prefix.MILLI);
+		prefixes.put("u", Prefix.MICRO);
+		prefixes.put("n", Prefix.NANO);
+		prefixes.put("p", Prefix.PICO);
+		prefixes.put("f", Prefix.FEMTO);
+		prefixes.put("a", Prefix.ATTO);
+		prefixes.put("z", Prefix.ZEPTO);
+		prefixes.put("y", Prefix.YOCTO);
+		prefixes.put("Ki", Prefix.KIBI);
+		prefixes.put("Mi", Prefix.MEBI);
+		prefixes.put("Gi", Prefix.GIBI);
+		PREFIXES = Collections.unmodifiableMap(prefixes);
+	}
+
+	// system to look up and create units in
+	private final MeasurementSystem system;
+
+	// creates products, quotients and powers
+	private final ExpressionParser expressionParser;
+
+	// parsed units of measure by expression
+	private final Map<String, UnitOfMeasure> expressions = new ConcurrentHashMap<>();
+
+	// unregistered dimensionless units by numeric code, e.g. "10*3"
+	private final Map<String, UnitOfMeasure> factors = new ConcurrentHashMap<>();
+
+	UnifiedCodeParser(MeasurementSystem system, ExpressionParser expressionParser) {
+		this.system = system;
+		this.expressionParser = expressionParser;
+	}
+
+	// the preferred UCUM code of the pre-defined unit, or null if none
+	static String getCode(Unit unit) {
+		return CODES_BY_UNIT.get(unit);
+	}
+
+	// get the unit of measure for the UCUM expression
+	UnitOfMeasure parse(String expression) throws Exception {
+		if (expression == null || expression.trim().length() == 0) {
+			throw new Exception(MeasurementSystem.getMessage("expression.cannot.be.null"));
+		}
+
+		UnitOfMeasure uom = expressions.get(expression);
+
+		if (uom != null) {
+			return uom;
+		}
+
+		Cursor cursor = new Cursor(expression.trim());
+
+		if (cursor.peekIs(DIV)) {
+			// reciprocal
+			cursor.next();
+			uom = expressionParser.divide(system.getOne(), parseTerm(cursor));
+		} else {
+			uom = parseTerm(cursor);
+		}
+
+		if (!cursor.atEnd()) {
+			throw cursor.invalid();
+		}
+
+		if (expressions.size() >= MAX_SIZE) {
+			expressions.clear();
+		}
+		expressions.put(expression, uom);
+
+		return uom;
+	}
+
+	void clear() {
+		expressions.clear();
+	}
+
+	int size() {
+		return expressions.size();
+	}
+
+	// component {(MULT | DIV) component}
+	private UnitOfMeasure parseTerm(Cursor cursor) throws Exception {
+		UnitOfMeasure uom = parseComponent(cursor);
+
+		while (true) {
+			if (cursor.peekIs(MULT)) {
+				cursor.next();
+				uom = expressionParser.multiply(uom, parseComponent(cursor));
+			} else if (cursor.peekIs(DIV)) {
+				cursor.next();
+				uom = expressionParser.divide(uom, parseComponent(cursor));
+			} else {
+				break;
+			}
+		}
+		return uom;
+	}
+
+	// LP term RP, annotation, factor or unit with an optional exponent and
+	// annotation
+	private UnitOfMeasure parseComponent(Cursor cursor) throws Exception {
+		UnitOfMeasure uom = null;
+
+		if (cursor.atEnd()) {
+			throw cursor.invalid();
+		}
+
+		char c = cursor.peek();
+
+		if (c == LP) {
+			cursor.next();
+			uom = parseTerm(cursor);
+
+			if (!cursor.peekIs(RP)) {
+				throw cursor.invalid();
+			}
+			cursor.next();
+		} else if (c == LA) {
+			// an annotation by itself is unity
+			skipAnnotation(cursor);
+			return system.getOne();
+		} else if (Character.isDigit(c)) {
+			uom = parseFactor(cursor);
+		} else {
+			uom = parseUnit(cursor);
+		}
+
+		if (cursor.peekIs(LA)) {
+			skipAnnotation(cursor);
+		}
+		return uom;
+	}
+
+	// prefixed unit code with an optional exponent
+	private UnitOfMeasure parseUnit(Cursor cursor) throws Exception {
+		int start = cursor.position();
+		int exponentStart = -1;
+
+		while (!cursor.atEnd()) {
+			char c = cursor.peek();
+
+			if (c == LB) {
+				// a bracketed code can contain any character but a right bracket
+				while (!cursor.atEnd() && cursor.peek() != RB) {
+					cursor.next();
+				}
+
+				if (cursor.atEnd()) {
+					throw cursor.invalid();
+				}
+				exponentStart = -1;
+			} else if (c == MULT || c == DIV || c == LP || c == RP || c == LA) {
+				break;
+			} else if (Character.isDigit(c) || c == PLUS || c == MINUS) {
+				if (exponentStart < 0) {
+					exponentStart = cursor.position();
+				}
+			} else {
+				exponentStart = -1;
+			}
+			cursor.next();
+		}
+
+		int end = exponentStart > start ? exponentStart : cursor.position();
+		UnitOfMeasure uom = resolve(cursor.text(start, end), cursor.expression());
+
+		if (end < cursor.position()) {
+			uom = expressionParser.power(uom, parseExponent(cursor, end));
+		}
+		return uom;
+	}
+
+	// a number, or a power of a number, as a dimensionless unit
+	private UnitOfMeasure parseFactor(Cursor cursor) throws Exception {
+		int start = cursor.position();
+		double factor = parseInteger(cursor);
+
+		if (cursor.peekIs(STAR) || cursor.peekIs(POW)) {
+			cursor.next();
+			int exponentStart = cursor.position();
+
+			while (!cursor.atEnd()
+					&& (Character.isDigit(cursor.peek()) || cursor.peek() == PLUS || cursor.peek() == MINUS)) {
+				cursor.next();
+			}
+			factor = Math.pow(factor, parseExponent(cursor, exponentStart));
+		}
+
+		if (Double.compare(factor, 1.0d) == 0) {
+			return system.getOne();
+		}
+
+		String code = cursor.text(start, cursor.position());
+		UnitOfMeasure uom = system.getUOM(code);
+
+		if (uom == null) {
+			uom = getFactor(code, factor);
+		}
+		return uom;
+	}
+
+	// an anonymous dimensionless unit for the numeric code. It is not
+	// registered, so parsing does not add units to the system.
+	private UnitOfMeasure getFactor(String code, double factor) throws Exception {
+		UnitOfMeasure one = system.getOne();
+		UnitOfMeasure uom = factors.get(code);
+
+		if (uom != null && uom.getAbscissaUnit() == one) {
+			return uom;
+		}
+
+		uom = new UnitOfMeasure(system, UnitType.UNITY, null, code, code);
+		uom.setScalingFactor(factor);
+		uom.setAbscissaUnit(one);
+
+		if (factors.size() >= MAX_SIZE) {
+			factors.clear();
+		}
+		factors.put(code, uom);
+
+		return uom;
+	}
+
+	private double parseInteger(Cursor cursor) throws Exception {
+		double value = 0.0d;
+
+		while (!cursor.atEnd() && Character.isDigit(cursor.peek())) {
+			value = value * 10.0d + Character.digit(cursor.peek(), 10);
+			cursor.next();
+		}
+		return value;
+	}
+
+	// the signed integer from the start to the current position
+	private int parseExponent(Cursor cursor, int start) throws Exception {
+		try {
+			return Integer.parseInt(cursor.text(start, cursor.position()));
+		} catch (NumberFormatException e) {
+			throw cursor.invalid();
+		}
+	}
+
+	private void skipAnnotation(Cursor cursor) throws Exception {
+		while (!cursor.atEnd() && cursor.peek() != RA) {
+			cursor.next();
+		}
+
+		if (cursor.atEnd()) {
+			throw cursor.invalid();
+		}
+		cursor.next();
+	}
+
+	// a unit code or a prefix followed by a unit code
+	private UnitOfMeasure resolve(String code, String expression) throws Exception {
+		Unit unit = UNITS_BY_CODE.get(code);
+
+		if (unit != null) {
+			return system.getUOM(unit);
+		}
+
+		// two character prefixes before one character prefixes
+		for (int length = 2; length > 0; length--) {
+			if (code.length() <= length) {
+				continue;
+			}
+
+			Prefix prefix = PREFIXES.get(code.substring(0, length));
+			unit = UNITS_BY_CODE.get(code.substring(length));
+
+			if (prefix != null && unit != null) {
+				return system.getUOM(prefix, system.getUOM(unit));
+			}
+		}
+
+		String msg = MessageFormat.format(MeasurementSystem.getMessage("code.not.found"), code, expression);
+		throw new Exception(msg);
+	}
+
+	// position in the expression being parsed
+	private static final class Cursor {
+		private final String expression;
+		private int position = 0;
+
+		private Cursor(String expression) {
+			this.expression = expression;
+		}
+
+		private boolean atEnd() {
+			return position >= expression.length();
+		}
+
+		private char peek() {
+			return expression.charAt(position);
+		}
+
+		private boolean peekIs(char c) {
+			return !atEnd() && expression.charAt(position) == c;
+		}
+
+		private void next() {
+			position++;
+		}
+
+		private int position() {
+			return position;
+		}
+
+		private String text(int start, int end) {
+			return expression.substring(start, end);
+		}
+
+		private String expression() {
+			return expression;
+		}
+
+		private Exception invalid() {
+			String msg = MessageFormat.format(MeasurementSystem.getMessage("invalid.expression"), expression,
+					position);
+			return new Exception(msg);
+		}
+	}
+}
@@ -0,0 +1,439 @@
+/*
+MIT License
+
+Copyright (c) 2016 Kent Randall
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package org.point85.uom;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A UnitCache is a concurrent cache with a {@link CachePolicy}. It is used for
+ * the registries of a {@link MeasurementSystem}, where units of measure are
+ * the values, and for the conversion factors of a {@link UnitOfMeasure}, where
+ * the target units of measure are the keys. A weak cache holds the unit of
+ * measure side of an entry, key or value, with a weak reference. <br>
+ * Lookups, hits and misses as well as evictions are counted in the shared
+ * {@link CacheStatistics}.
+ *
+ * @author Kent Randall
+ *
+ */
+abstract class UnitCache<K, V> {
+	// shared counters
+	final CacheStatistics statistics;
+
+	private UnitCache(CacheStatistics statistics) {
+		this.statistics = statistics;
+	}
+
+	/**
+	 * Create a cache
+	 * 
+	 * @param policy     {@link CachePolicy}
+	 * @param maxSize    Maximum number of entries for an LRU cache
+	 * @param weakKeys   For a weak cache, true if the keys are units of measure
+	 *                   and false if the values are
+	 * @param statistics {@link CacheStatistics}
+	 * @return UnitCache
+	 */
+	static <K, V> UnitCache<K, V> create(CachePolicy policy, int maxSize, boolean weakKeys,
+			CacheStatistics statistics) {
+		UnitCache<K, V> cache = null;
+
+		switch (policy) {
+		case LRU:
+			cache = new LruCache<>(maxSize, statistics);
+			break;
+
+		case WEAK:
+			if (weakKeys) {
+				cache = new WeakKeyCache<>(statistics);
+			} else {
+				cache = new WeakValueCache<>(statistics);
+			}
+			break;
+
+		case UNBOUNDED:
+		default:
+			cache = new MapCache<>(new ConcurrentHashMap<>(), statistics);
+			break;
+		}
+		return cache;
+	}
+
+	// get the value for the key, or null if not cached
+	final V get(K key) {
+		V value = lookup(key);
+
+		if (value != null) {
+			statistics.recordHit();
+		} else {
+			statistics.recordMiss();
+		}
+		return value;
+	}
+
+	abstract V lookup(K key);
+
+	abstract void put(K key, V value);
+
+	abstract V remove(K key);
+
+	abstract void clear();
+
+	abstract int size();
+
+	// a copy of the entries
+	abstract Map<K, V> snapshot();
+
+	// cache backed by a map with strong references
+	private static class MapCache<K, V> extends UnitCache<K, V> {
+		private final Map<K, V> map;
+
+		private MapCache(Map<K, V> map, CacheStatistics statistics) {
+			super(statistics);
+			this.map = map;
+		}
+
+		@Override
+		V lookup(K key) {
+			return map.get(key);
+		}
+
+		@Override
+		void put(K key, V value) {
+			map.put(key, value);
+		}
+
+		@Override
+		V remove(K key) {
+			return map.remove(key);
+		}
+
+		@Override
+		void clear() {
+			map.clear();
+		}
+
+		@Override
+		int size() {
+			return map.size();
+		}
+
+		@Override
+		Map<K, V> snapshot() {
+			return new HashMap<>(map);
+		}
+	}
+
+	// cache that evicts the least recently used entries beyond a maximum size.
+	// A hit only stamps its entry, so lookups do not lock. The stamps come from
+	// a clock advanced by each put, and entries are evicted in batches by
+	// their stamp.
+	private static class LruCache<K, V> extends UnitCache<K, V> {
+		private final Map<K, Stamped<V>> map = new ConcurrentHashMap<>();
+
+		// maximum number of entries
+		private final int maxSize;
+
+		// number of entries to keep after an eviction
+		private final int retainedSize;
+
+		// clock for the access stamps
+		private final AtomicLong clock = new AtomicLong();
+
+		private LruCache(int maxSize, CacheStatistics statistics) {
+			super(statistics);
+			this.maxSize = maxSize;
+			this.retainedSize = maxSize - maxSize / 16;
+		}
+
+		@Override
+		V lookup(K key) {
+			Stamped<V> entry = map.get(key);
+
+			if (entry == null) {
+				return null;
+			}
+			entry.stamp = clock.get();
+			return entry.value;
+		}
+
+		@Override
+		void put(K key, V value) {
+			map.put(key, new Stamped<>(value, clock.incrementAndGet()));
+
+			if (map.size() > maxSize) {
+				evict();
+			}
+		}
+
+		// remove the least recently used entries
+		private synchronized void evict() {
+			int excess = map.size() - retainedSize;
+
+			if (excess <= 0) {
+				return;
+			}
+
+			// the stamp of the newest entry to evict
+			long[] stamps = new long[map.size()];
+			int count = 0;
+
+			for (Stamped<V> entry : map.values()) {
+				if (count == stamps.length) {
+					break;
+				}
+				stamps[count++] = entry.stamp;
+			}
+			Arrays.sort(stamps, 0, count);
+			long oldest = stamps[Math.min(excess, count) - 1];
+
+			Iterator<Stamped<V>> iterator = map.values().iterator();
+
+			while (iterator.hasNext() && excess > 0) {
+				if (iterator.next().stamp <= oldest) {
+					iterator.remove();
+					statistics.recordEviction();
+					excess--;
+				}
+			}
+		}
+
+		@Override
+		V remove(K key) {
+			Stamped<V> entry = map.remove(key);
+			return entry != null ? entry.value : null;
+		}
+
+		@Override
+		void clear() {
+			map.clear();
+		}
+
+		@Override
+		int size() {
+			return map.size();
+		}
+
+		@Override
+		Map<K, V> snapshot() {
+			Map<K, V> copy = new HashMap<>();
+
+			for (Entry<K, Stamped<V>> entry : map.entrySet()) {
+				copy.put(entry.getKey(), entry.getValue().value);
+			}
+			return copy;
+		}
+	}
+
+	// a value and the clock time it was last used
+	private static final class Stamped<V> {
+		private final V value;
+		private volatile long stamp;
+
+		private Stamped(V value, long stamp) {
+			this.value = value;
+			this.stamp = stamp;
+		}
+	}
+
+	// cache with weakly referenced keys
+	private static class WeakKeyCache<K, V> extends UnitCache<K, V> {
+		private final Map<WeakKey<K>, V> map = new ConcurrentHashMap<>();
+
+		private final ReferenceQueue<K> queue = new ReferenceQueue<>();
+
+		private WeakKeyCache(CacheStatistics statistics) {
+			super(statistics);
+		}
+
+		// remove the entries of collected keys
+		private void expunge() {
+			Object ref;
+			while ((ref = queue.poll()) != null) {
+				if (map.remove(ref) != null) {
+					statistics.recordEviction();
+				}
+			}
+		}
+
+		@Override
+		V lookup(K key) {
+			expunge();
+			return map.get(new WeakKey<>(key, null));
+		}
+
+		@Override
+		void put(K key, V value) {
+			expunge();
+			map.put(new WeakKey<>(key, queue), value);
+		}
+
+		@Override
+		V remove(K key) {
+			expunge();
+			return map.remove(new WeakKey<>(key, null));
+		}
+
+		@Override
+		void clear() {
+			map.clear();
+			expunge();
+		}
+
+		@Override
+		int size() {
+			expunge();
+			return map.size();
+		}
+
+		@Override
+		Map<K, V> snapshot() {
+			Map<K, V> copy = new HashMap<>();
+
+			for (Entry<WeakKey<K>, V> entry : map.entrySet()) {
+				K key = entry.getKey().get();
+
+				if (key != null) {
+					copy.put(key, entry.getValue());
+				}
+			}
+			return copy;
+		}
+	}
+
+	// a weakly referenced key that is equal to keys with an equal referent
+	private static final class WeakKey<K> extends WeakReference<K> {
+		private final int hash;
+
+		private WeakKey(K key, ReferenceQueue<K> queue) {
+			super(key, queue);
+			this.hash = key.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+
+			if (!(other instanceof WeakKey)) {
+				return false;
+			}
+
+			Object key = get();
+			return key != null && key.equals(((WeakKey<?>) other).get());
+		}
+	}
+
+	// cache with weakly referenced values
+	private static class WeakValueCache<K, V> extends UnitCache<K, V> {
+		private final Map<K, WeakValue<K, V>> map = new ConcurrentHashMap<>();
+
+		private final ReferenceQueue<V> queue = new ReferenceQueue<>();
+
+		private WeakValueCache(CacheStatistics statistics) {
+			super(statistics);
+		}
+
+		// remove the entries of collected values
+		@SuppressWarnings("unchecked")
+		private void expunge() {
+			WeakValue<K, V> ref;
+			while ((ref = (WeakValue<K, V>) queue.poll()) != null) {
+				if (map.remove(ref.key, ref)) {
+					statistics.recordEviction();
+				}
+			}
+		}
+
+		@Override
+		V lookup(K key) {
+			expunge();
+			WeakValue<K, V> ref = map.get(key);
+			return ref != null ? ref.get() : null;
+		}
+
+		@Override
+		void put(K key, V value) {
+			expunge();
+			map.put(key, new WeakValue<>(key, value, queue));
+		}
+
+		@Override
+		V remove(K key) {
+			expunge();
+			WeakValue<K, V> ref = map.remove(key);
+			return ref != null ? ref.get() : null;
+		}
+
+		@Override
+		void clear() {
+			map.clear();
+			expunge();
+		}
+
+		@Override
+		int size() {
+			expunge();
+			return map.size();
+		}
+
+		@Override
+		Map<K, V> snapshot() {
+			Map<K, V> copy = new HashMap<>();
+
+			for (Entry<K, WeakValue<K, V>> entry : map.entrySet()) {
+				V value = entry.getValue().get();
+
+				if (value != null) {
+					copy.put(entry.getKey(), value);
+				}
+			}
+			return copy;
+		}
+	}
+
+	// a weakly referenced value that knows its key
+	private static final class WeakValue<K, V> extends WeakReference<V> {
+		private final K key;
+
+		private WeakValue(K key, V value, ReferenceQueue<V> queue) {
+			super(value, queue);
+			this.key = key;
+		}
+	}
+}
@@ -0,0 +1,303 @@
+/*
+MIT License
+
+Copyright (c) 2016 Kent Randall
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package org.point85.uom;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.ResourceBundle;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+/**
+ * The UnitCatalog is a compact binary snapshot of the pre-defined units of
+ * measure. It is generated at build time by running {@link #main(String[])}
+ * after compilation, and it is loaded by
+ * {@link MeasurementSystem#createAllUnits()} so that a new JVM does not have
+ * to create each unit through the unit definitions in the
+ * {@link MeasurementSystem}. <br>
+ * The snapshot holds every registered unit together with the unregistered
+ * units they are defined in terms of. Units reference each other by their
+ * index in the snapshot, so all units are created before any are wired
+ * together. A snapshot built for a different set of {@link Unit} enumerations,
+ * a different unit resource bundle or different unit definitions is not
+ * loaded.
+ *
+ * @author Kent Randall
+ *
+ */
+final class UnitCatalog {
+	// name of the snapshot resource next to this class
+	static final String RESOURCE_NAME = "catalog.bin";
+
+	// identifies a snapshot stream
+	private static final int MAGIC = 0x55434154;
+
+	// incremented when the layout of the snapshot changes
+	private static final int FORMAT_VERSION = 2;
+
+	// the unit definitions, in the measurement system class
+	private static final String DEFINITIONS_NAME = "MeasurementSystem.class";
+
+	// index of a null unit reference
+	static final int NO_UNIT = -1;
+
+	private UnitCatalog() {
+		// static methods only
+	}
+
+	// the snapshot is only valid for the same enumerations and unit strings
+	private static String getBundleLocale() {
+		return MeasurementSystem.getSystem().getSymbols().getLocale().toString();
+	}
+
+	// checksum of the enumerations, the unit strings and the unit definitions
+	// that the snapshot was built from
+	static long getDefinitionHash() throws IOException {
+		CRC32 crc = new CRC32();
+
+		for (Unit unit : Unit.values()) {
+			crc.update(unit.name().getBytes(StandardCharsets.UTF_8));
+		}
+
+		ResourceBundle symbols = MeasurementSystem.getSystem().getSymbols();
+		for (String key : new TreeSet<>(symbols.keySet())) {
+			crc.update(key.getBytes(StandardCharsets.UTF_8));
+			crc.update(symbols.getString(key).getBytes(StandardCharsets.UTF_8));
+		}
+
+		try (InputStream is = MeasurementSystem.class.getResourceAsStream(DEFINITIONS_NAME)) {
+			if (is != null) {
+				byte[] buffer = new byte[8192];
+				int count;
+
+				while ((count = is.read(buffer)) > 0) {
+					crc.update(buffer, 0, count);
+				}
+			}
+		}
+		return crc.getValue();
+	}
+
+	/**
+	 * Write a snapshot of the units of measure registered in the measurement
+	 * system
+	 * 
+	 * @param system {@link MeasurementSystem}
+	 * @param os     Output stream
+	 * @throws Exception Exception
+	 */
+	static void write(MeasurementSystem system, OutputStream os) throws Exception {
+		List<UnitOfMeasure> registered = system.getRegisteredUnits();
+
+		// index all units, including those only referenced by registered units
+		Map<UnitOfMeasure, Integer> indexes = new IdentityHashMap<>();
+		List<UnitOfMeasure> units = new ArrayList<>();
+		Deque<UnitOfMeasure> pending = new ArrayDeque<>(registered);
+
+		while (!pending.isEmpty()) {
+			UnitOfMeasure uom = pending.pop();
+
+			if (indexes.containsKey(uom)) {
+				continue;
+			}
+			indexes.put(uom, units.size());
+			units.add(uom);
+
+			for (UnitOfMeasure reference : uom.getReferencedUnits()) {
+				if (reference != null) {
+					pending.push(reference);
+				}
+			}
+		}
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os));
+
+		// header
+		out.writeInt(MAGIC);
+		out.writeInt(FORMAT_VERSION);
+		out.writeInt(Unit.values().length);
+		out.writeUTF(getBundleLocale());
+		out.writeLong(getDefinitionHash());
+
+		// unit definitions
+		out.writeInt(units.size());
+		for (UnitOfMeasure uom : units) {
+			uom.writeDefinition(out, indexes);
+		}
+
+		// units registered by symbol
+		out.writeInt(registered.size());
+		for (UnitOfMeasure uom : registered) {
+			out.writeInt(indexes.get(uom));
+		}
+
+		// units registered by base symbol
+		Map<String, UnitOfMeasure> baseUnits = system.getBaseSymbolCache();
+		out.writeInt(baseUnits.size());
+		for (Entry<String, UnitOfMeasure> entry : baseUnits.entrySet()) {
+			out.writeUTF(entry.getKey());
+			out.writeInt(indexes.get(entry.getValue()));
+		}
+		out.flush();
+	}
+
+	/**
+	 * Load the snapshot resource into the measurement system
+	 * 
+	 * @param system {@link MeasurementSystem}
+	 * @return True if loaded, false if there is no compatible snapshot
+	 * @throws Exception Exception
+	 */
+	static boolean load(MeasurementSystem system) throws Exception {
+		try (InputStream is = UnitCatalog.class.getResourceAsStream(RESOURCE_NAME)) {
+			if (is == null) {
+				return false;
+			}
+			return read(system, is);
+		}
+	}
+
+	/**
+	 * Read a snapshot into the measurement system
+	 * 
+	 * @param system {@link MeasurementSystem}
+	 * @param is     Input stream
+	 * @return True if read, false if the snapshot is not compatible
+	 * @throws Exception Exception
+	 */
+	static boolean read(MeasurementSystem system, InputStream is) throws Exception {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(is));
+
+		if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || in.readInt() != Unit.values().length
+				|| !in.readUTF().equals(getBundleLocale()) || in.readLong() != getDefinitionHash()) {
+			return false;
+		}
+
+		// create all units, then wire them together
+		UnitOfMeasure[] units = new UnitOfMeasure[in.readInt()];
+		for (int i = 0; i < units.length; i++) {
+			units[i] = new UnitOfMeasure(system);
+		}
+
+		for (UnitOfMeasure uom : units) {
+			uom.readDefinition(in, units);
+		}
+
+		for (UnitOfMeasure uom : units) {
+			if (uom.getBridgeAbscissaUnit() != null) {
+				system.getBridgeGraph().addBridge(uom, false);
+			}
+		}
+
+		List<UnitOfMeasure> registered = new ArrayList<>();
+		int count = in.readInt();
+		for (int i = 0; i < count; i++) {
+			registered.add(units[in.readInt()]);
+		}
+
+		Map<String, UnitOfMeasure> baseUnits = new LinkedHashMap<>();
+		count = in.readInt();
+		for (int i = 0; i < count; i++) {
+			String baseSymbol = in.readUTF();
+			baseUnits.put(baseSymbol, units[in.readInt()]);
+		}
+
+		system.installCatalog(registered, baseUnits);
+		return true;
+	}
+
+	// write a string that may be null
+	static void writeString(DataOutput out, String value) throws IOException {
+		out.writeBoolean(value != null);
+
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	// read a string that may be null
+	static String readString(DataInput in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	// write an exponent that may be null
+	static void writeInteger(DataOutput out, Integer value) throws IOException {
+		out.writeBoolean(value != null);
+
+		if (value != null) {
+			out.writeInt(value);
+		}
+	}
+
+	// read an exponent that may be null
+	static Integer readInteger(DataInput in) throws IOException {
+		return in.readBoolean() ? in.readInt() : null;
+	}
+
+	// write the index of a unit that may be null
+	static void writeUnit(DataOutput out, UnitOfMeasure uom, Map<UnitOfMeasure, Integer> indexes) throws IOException {
+		out.writeInt(uom != null ? indexes.get(uom) : NO_UNIT);
+	}
+
+	// read a unit by its index
+	static UnitOfMeasure readUnit(DataInput in, UnitOfMeasure[] units) throws IOException {
+		int index = in.readInt();
+		return index != NO_UNIT ? units[index] : null;
+	}
+
+	/**
+	 * Generate the snapshot of all pre-defined units of measure
+	 * 
+	 * @param args The path of the snapshot file to write
+	 * @throws Exception Exception
+	 */
+	public static void main(String[] args) throws Exception {
+		MeasurementSystem system = MeasurementSystem.getSystem();
+
+		for (Unit unit : Unit.values()) {
+			system.getUOM(unit);
+		}
+
+		try (OutputStream os = new FileOutputStream(args[0])) {
+			write(system, os);
+		}
+	}
+}
@@ -23,17 +23,16 @@ SOFTWARE.
 */
 package org.point85.uom;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.text.MessageFormat;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Objects;
 import java.util.ResourceBundle;
-import java.util.SortedSet;
-import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleUnaryOperator;
 
 /**
  * <p>
@@ -79,6 +78,14 @@ import java.util.concurrent.ConcurrentHashMap;
  * combinations, the {@link MeasurementSystem} is able to create units by
  * specifying the {@link Prefix} and target unit of measure. Similarly, computer
  * science has defined prefixes for bytes (e.g. "mega").
+ * </p>
+ * <p>
+ * The unit returned by {@link #multiply(UnitOfMeasure)},
+ * {@link #divide(UnitOfMeasure)} and {@link #invert()} is shared by every caller
+ * of the same operation until it is changed. Changing it, e.g. with
+ * {@link #setSymbol(String)}, removes it from the cache of results, so the next
+ * operation creates a new unit.
+ * </p>
  * 
  * @author Kent Randall
  *
@@ -93,18 +100,28 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 	// maximum length of the symbol
 	private static final int MAX_SYMBOL_LENGTH = 16;
 
+	// maximum depth of a reduction to base units of measure
+	private static final int MAX_RECURSIONS = 100;
+
 	// multiply, divide and power symbols
 	private static final char MULT = (char) 0xB7;
 	private static final char DIV = '/';
 	private static final char POW = '^';
 	private static final char SQ = (char) 0xB2;
-	private static final char CUBED = (char) 0xB3;
-	private static final char LP = '(';
-	private static final char RP = ')';
-	private static final char ONE_CHAR = '1';
 
-	// registry of unit conversion factor (not persistent)
-	private Map<UnitOfMeasure, Double> conversionRegistry = new ConcurrentHashMap<>();
+	// FNV-1a hash parameters for intermediate symbols
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	// not yet assigned a packed measure id
+	static final int NO_ID = -1;
+
+	// measurement system that owns this unit (not persistent)
+	private final MeasurementSystem system;
+
+	// registry of unit conversion factor with the definition version it was
+	// computed for (not persistent)
+	private volatile UnitCache<UnitOfMeasure, CachedFactor> conversionRegistry;
 
 	// conversion to another Unit of Measure in the same recognized measurement
 	// system (y = ax + b)
@@ -132,8 +149,35 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 	// x-axis unit
 	private UnitOfMeasure bridgeAbscissaUnit;
 
-	// cached base symbol (not persistent)
-	private String baseSymbol;
+	// cached reduction to base units of measure (not persistent). The form is
+	// immutable, so readers see a fully built snapshot without locking.
+	private volatile ReducedForm reducedForm;
+
+	// true if the reduced form of another unit has been built from this unit
+	private volatile boolean isComponent = false;
+
+	// cached named unit that this anonymous unit simplifies to (not persistent)
+	private volatile NamedUnitIndex.Simplification simplification;
+
+	// cached hash code, 0 if not yet computed (not persistent)
+	private int hash;
+
+	// units scaled from this one by a prefix (not persistent)
+	private volatile Map<Prefix, UnitOfMeasure> prefixedUnits;
+
+	// the prefix and unit this one was scaled from, e.g. k and m for km (not
+	// persistent)
+	private volatile PrefixedFrom prefixedFrom;
+
+	// root unit of the conversion path and the factor to it (not persistent)
+	private volatile PathParameters pathParameters;
+
+	// true for the cached result of a multiplication or division (not
+	// persistent)
+	private volatile boolean interned = false;
+
+	// id of this unit in packed measures, or NO_ID (not persistent)
+	private volatile int unitId = NO_ID;
 
 	// user-defined category
 	private String category = MeasurementSystem.getUnitString("default.category.text");
@@ -161,15 +205,32 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 	 * Construct a default unit of measure
 	 */
 	public UnitOfMeasure() {
+		this(MeasurementSystem.getSystem());
+	}
+
+	UnitOfMeasure(MeasurementSystem system) {
 		super();
+		this.system = system;
+		this.conversionRegistry = system.createConversionCache();
 	}
 
-	UnitOfMeasure(UnitType type, String name, String symbol, String description) {
+	UnitOfMeasure(MeasurementSystem system, UnitType type, String name, String symbol, String description) {
 		super(name, symbol.trim(), description);
+		this.system = system;
+		this.conversionRegistry = system.createConversionCache();
 		this.unitType = type;
 		this.category = MeasurementSystem.getUnitString("default.category.text");
 	}
 
+	/**
+	 * Get the measurement system that owns this unit of measure
+	 * 
+	 * @return {@link MeasurementSystem}
+	 */
+	public MeasurementSystem getMeasurementSystem() {
+		return system;
+	}
+
 	/**
 	 * Check to see if the exponent is valid
 	 * 
@@ -195,6 +256,7 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 	 * @param key Key
 	 */
 	public void setKey(Long key) {
+		detach();
 		this.primaryKey = key;
 	}
 
@@ -213,12 +275,14 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 	 * @param version Version
 	 */
 	public void setVersion(Integer version) {
+		detach();
 		this.version = version;
 	}
 
 	private void setPowerProduct(UnitOfMeasure uom1, Integer exponent1) {
 		this.uom1 = uom1;
 		this.exponent1 = exponent1;
+		onDefinitionChange();
 	}
 
 	private void setPowerProduct(UnitOfMeasure uom1, Integer exponent1, UnitOfMeasure uom2, Integer exponent2) {
@@ -226,6 +290,77 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 		this.exponent1 = exponent1;
 		this.uom2 = uom2;
 		this.exponent2 = exponent2;
+		onDefinitionChange();
+	}
+
+	// the cached reduced form is no longer valid after a redefinition, nor are
+	// those of the units composed of this one. The cached factors between
+	// pre-defined units are also no longer valid if one of them is redefined.
+	private void onDefinitionChange() {
+		reducedForm = null;
+		prefixedFrom = null;
+		pathParameters = null;
+
+		if (isComponent) {
+			isComponent = false;
+			system.onDefinitionChange();
+			system.clearConversionMatrix();
+		} else if (unit != null) {
+			system.clearConversionMatrix();
+		}
+	}
+
+	// units of measure that this one is defined in terms of
+	List<UnitOfMeasure> getReferencedUnits() {
+		return Arrays.asList(abscissaUnit, uom1, uom2, bridgeAbscissaUnit);
+	}
+
+	// write the definition of this unit to a catalog snapshot
+	void writeDefinition(DataOutput out, Map<UnitOfMeasure, Integer> indexes) throws IOException {
+		UnitCatalog.writeString(out, getName());
+		UnitCatalog.writeString(out, getSymbol());
+		UnitCatalog.writeString(out, getDescription());
+		UnitCatalog.writeString(out, category);
+		out.writeUTF(unitType.name());
+		UnitCatalog.writeString(out, unit != null ? unit.name() : null);
+
+		out.writeDouble(scalingFactor);
+		out.writeDouble(offset);
+		UnitCatalog.writeUnit(out, abscissaUnit, indexes);
+
+		UnitCatalog.writeUnit(out, uom1, indexes);
+		UnitCatalog.writeInteger(out, exponent1);
+		UnitCatalog.writeUnit(out, uom2, indexes);
+		UnitCatalog.writeInteger(out, exponent2);
+
+		out.writeDouble(bridgeScalingFactor);
+		out.writeDouble(bridgeOffset);
+		UnitCatalog.writeUnit(out, bridgeAbscissaUnit, indexes);
+	}
+
+	// read the definition of this new unit from a catalog snapshot
+	void readDefinition(DataInput in, UnitOfMeasure[] units) throws IOException {
+		setName(UnitCatalog.readString(in));
+		setSymbol(UnitCatalog.readString(in));
+		setDescription(UnitCatalog.readString(in));
+		category = UnitCatalog.readString(in);
+		unitType = UnitType.valueOf(in.readUTF());
+
+		String enumeration = UnitCatalog.readString(in);
+		unit = enumeration != null ? Unit.valueOf(enumeration) : null;
+
+		scalingFactor = in.readDouble();
+		offset = in.readDouble();
+		abscissaUnit = UnitCatalog.readUnit(in, units);
+
+		uom1 = UnitCatalog.readUnit(in, units);
+		exponent1 = UnitCatalog.readInteger(in);
+		uom2 = UnitCatalog.readUnit(in, units);
+		exponent2 = UnitCatalog.readInteger(in);
+
+		bridgeScalingFactor = in.readDouble();
+		bridgeOffset = in.readDouble();
+		bridgeAbscissaUnit = UnitCatalog.readUnit(in, units);
 	}
 
 	private Integer getExponent1() {
@@ -265,7 +400,7 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 
 	UnitOfMeasure clonePower(UnitOfMeasure uom) throws Exception {
 
-		UnitOfMeasure newUOM = new UnitOfMeasure();
+		UnitOfMeasure newUOM = new UnitOfMeasure(system);
 		newUOM.setUnitType(getUnitType());
 
 		// check if quotient
@@ -274,7 +409,7 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 			exponent = getPowerExponent();
 		}
 
-		UnitOfMeasure one = MeasurementSystem.getSystem().getOne();
+		UnitOfMeasure one = system.getOne();
 		if (getMeasurementType().equals(MeasurementType.QUOTIENT)) {
 			if (getDividend().equals(one)) {
 				exponent = getExponent2();
@@ -292,7 +427,7 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 
 	UnitOfMeasure clonePowerProduct(UnitOfMeasure uom1, UnitOfMeasure uom2) throws Exception {
 		boolean invert = false;
-		UnitOfMeasure one = MeasurementSystem.getSystem().getOne();
+		UnitOfMeasure one = system.getOne();
 
 		// check if quotient
 		if (getMeasurementType().equals(MeasurementType.QUOTIENT)) {
@@ -308,7 +443,7 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 			}
 		}
 
-		UnitOfMeasure newUOM = uom1.multiplyOrDivide(uom2, invert);
+		UnitOfMeasure newUOM = uom1.newProductOrQuotient(uom2, invert);
 		newUOM.setUnitType(getUnitType());
 
 		return newUOM;
@@ -321,6 +456,77 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 		conversionRegistry.clear();
 	}
 
+	// the definition version that a conversion factor to the unit of measure
+	// is computed for, over the systems of both units
+	private long getFactorVersion(UnitOfMeasure targetUOM) {
+		long version = system.getDefinitionVersion();
+		return targetUOM.system != system ? version + targetUOM.system.getDefinitionVersion() : version;
+	}
+
+	// the cached factor to convert to the unit of measure if it was computed
+	// for this definition version, otherwise NaN
+	private double getRegisteredFactor(UnitOfMeasure targetUOM, long version) {
+		UnitCache<UnitOfMeasure, CachedFactor> registry = conversionRegistry;
+		CachedFactor cached = registry.lookup(targetUOM);
+
+		if (cached != null && cached.version == version) {
+			registry.statistics.recordHit();
+			return cached.factor;
+		}
+		registry.statistics.recordMiss();
+		return Double.NaN;
+	}
+
+	// the unit scaled from this one by the prefix, or null if not cached
+	UnitOfMeasure getPrefixedUnit(Prefix prefix) {
+		Map<Prefix, UnitOfMeasure> units = prefixedUnits;
+		return units != null ? units.get(prefix) : null;
+	}
+
+	// cache the unit scaled from this one by the prefix
+	void putPrefixedUnit(Prefix prefix, UnitOfMeasure scaled) {
+		Map<Prefix, UnitOfMeasure> units = prefixedUnits;
+
+		if (units == null) {
+			// a map lost to a racing thread only loses its cached units
+			units = new ConcurrentHashMap<>(4);
+			prefixedUnits = units;
+		}
+		units.put(prefix, scaled);
+	}
+
+	// record that this unit is the target unit scaled by the prefix
+	void setPrefixedFrom(Prefix prefix, UnitOfMeasure targetUOM) {
+		prefixedFrom = new PrefixedFrom(prefix, targetUOM);
+	}
+
+	// true if this unit is defined as the target unit scaled by the prefix
+	boolean isPrefixedFrom(Prefix prefix, UnitOfMeasure targetUOM) {
+		if (offset != 0.0d || abscissaUnit != targetUOM.getAbscissaUnit()) {
+			return false;
+		}
+		double factor = targetUOM.getScalingFactor() * prefix.getFactor();
+		return Math.abs(scalingFactor - factor) <= MeasurementSystem.EPSILON * Math.abs(factor);
+	}
+
+	// the prefix this unit was scaled by, or null if it was not or its target has
+	// since been redefined
+	Prefix getPrefix() {
+		PrefixedFrom from = prefixedFrom;
+		return from != null && isPrefixedFrom(from.prefix, from.targetUOM) ? from.prefix : null;
+	}
+
+	// the unit this one was scaled from by its prefix, or null
+	UnitOfMeasure getPrefixTarget() {
+		PrefixedFrom from = prefixedFrom;
+		return from != null ? from.targetUOM : null;
+	}
+
+	// replace the conversion cache with one for the current cache policy
+	void resetConversionCache() {
+		conversionRegistry = system.createConversionCache();
+	}
+
 	/**
 	 * Get the unit of measure corresponding to the base symbol
 	 * 
@@ -329,7 +535,7 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 	 */
 	public UnitOfMeasure getBaseUOM() throws Exception {
 		String base = getBaseSymbol();
-		return MeasurementSystem.getSystem().getBaseUOM(base);
+		return system.getBaseUOM(base);
 	}
 
 	/**
@@ -368,9 +574,21 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 	 * @throws Exception Exception
 	 */
 	public void setBridgeConversion(double scalingFactor, UnitOfMeasure abscissaUnit, double offset) throws Exception {
+		detach();
+		MeasurementSystem owner = abscissaUnit != null ? getResultOwner(abscissaUnit) : system;
+		boolean replaced = this.bridgeAbscissaUnit != null;
+
+		if (replaced && getBridgeOwner() != owner) {
+			getBridgeOwner().getBridgeGraph().removeBridge(this);
+		}
+
 		this.bridgeScalingFactor = scalingFactor;
 		this.bridgeAbscissaUnit = abscissaUnit;
 		this.bridgeOffset = offset;
+		onDefinitionChange();
+
+		owner.getBridgeGraph().addBridge(this, replaced);
+		system.pinUnit(this);
 	}
 
 	/**
@@ -399,7 +617,53 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 	 * @param unit {@link Unit}
 	 */
 	public void setEnumeration(Unit unit) {
+		detach();
 		this.unit = unit;
+		this.hash = 0;
+		onDefinitionChange();
+	}
+
+	/**
+	 * Set the symbol
+	 * 
+	 * @param symbol Symbol
+	 */
+	@Override
+	public void setSymbol(String symbol) {
+		detach();
+		super.setSymbol(symbol);
+		this.hash = 0;
+	}
+
+	/**
+	 * Set the name
+	 * 
+	 * @param name Name
+	 */
+	@Override
+	public void setName(String name) {
+		detach();
+		super.setName(name);
+	}
+
+	/**
+	 * Set the description
+	 * 
+	 * @param description Description
+	 */
+	@Override
+	public void setDescription(String description) {
+		detach();
+		super.setDescription(description);
+	}
+
+	// the cached result of an operation is about to be changed, so it is no
+	// longer shared and the next operation creates a new result
+	private void detach() {
+		if (interned) {
+			system.getResultCache().remove(this);
+			interned = false;
+		}
 	}
 
 	/**
@@ -417,7 +681,14 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 	 * @param unitType {@link UnitType}
 	 */
 	public void setUnitType(UnitType unitType) {
+		detach();
+		boolean changed = this.unitType != unitType;
 		this.unitType = unitType;
+
+		if (changed && uom1 == null && abscissaUnit == this) {
+			// reduced forms hold the types of their base units
+			onDefinitionChange();
+		}
 	}
 
 	/**
@@ -435,6 +706,7 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 	 * @param category Category
 	 */
 	public void setCategory(String category) {
+		detach();
 		this.category = category;
 	}
 
@@ -464,7 +736,20 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 	 * @return hash code
 	 */
 	public int hashCode() {
-		return Objects.hash(MeasurementSystem.getSystem(), getEnumeration(), getSymbol());
+		int h = hash;
+
+		if (h == 0) {
+			// same as Objects.hash(system, enumeration, symbol) without the varargs
+			// array, where the system is the one that owns this unit
+			Unit enumeration = getEnumeration();
+			String symbol = getSymbol();
+
+			h = 31 + system.hashCode();
+			h = 31 * h + (enumeration != null ? enumeration.hashCode() : 0);
+			h = 31 * h + (symbol != null ? symbol.hashCode() : 0);
+			hash = h;
+		}
+		return h;
 	}
 
 	/**
@@ -474,12 +759,20 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 	 */
 	@Override
 	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
 
 		if (!(other instanceof UnitOfMeasure)) {
 			return false;
 		}
 		UnitOfMeasure otherUnit = (UnitOfMeasure) other;
 
+		// same owning system
+		if (system != otherUnit.system) {
+			return false;
+		}
+
 		// same enumerations
 		Unit thisEnumeration = getEnumeration();
 		Unit otherEnumeration = otherUnit.getEnumeration();
@@ -497,12 +790,12 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 		}
 
 		// same factors
-		if (Double.valueOf(getScalingFactor()).compareTo(Double.valueOf(otherUnit.getScalingFactor())) != 0) {
+		if (Double.compare(getScalingFactor(), otherUnit.getScalingFactor()) != 0) {
 			return false;
 		}
 
 		// same offsets
-		if (Double.valueOf(getOffset()).compareTo(Double.valueOf(otherUnit.getOffset())) != 0) {
+		if (Double.compare(getOffset(), otherUnit.getOffset()) != 0) {
 			return false;
 		}
 		return true;
@@ -523,61 +816,44 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 		checkOffset(this);
 		checkOffset(other);
 
-		// this base symbol map
-		Reducer thisReducer = getReducer();
-		Map<UnitOfMeasure, Integer> thisMap = thisReducer.getTerms();
-
-		// other base symbol map
-		Reducer otherReducer = other.getReducer();
-		Map<UnitOfMeasure, Integer> otherMap = otherReducer.getTerms();
-
-		// create a map of the unit of measure powers
-		Map<UnitOfMeasure, Integer> resultMap = new HashMap<>();
+		MeasurementSystem owner = getResultOwner(other);
 
-		// iterate over the multiplier's unit map
-		for (Entry<UnitOfMeasure, Integer> thisEntry : thisMap.entrySet()) {
-			UnitOfMeasure thisUOM = thisEntry.getKey();
-			Integer thisPower = thisEntry.getValue();
+		// the same operation returns the same unit
+		ResultCache resultCache = owner.getResultCache();
+		char operation = invert ? ResultCache.DIVIDE : ResultCache.MULTIPLY;
+		long version = owner.getDefinitionVersion();
 
-			Integer otherPower = otherMap.get(thisUOM);
+		UnitOfMeasure result = resultCache.get(this, other, operation, version);
 
-			if (otherPower != null) {
-				if (!invert) {
-					// add to multiplier's power
-					thisPower += otherPower;
-				} else {
-					// subtract from dividend's power
-					thisPower -= otherPower;
-				}
+		if (result != null) {
+			return result;
+		}
 
-				// remove multiplicand or divisor UOM
-				otherMap.remove(thisUOM);
-			}
+		// reduce the product or quotient to base units of measure
+		ReducedForm resultForm = ReducedForm.combine(getReducedForm(), 1, other.getReducedForm(), invert ? -1 : 1,
+				version);
+		String base = resultForm.getBaseSymbol();
+		UnitOfMeasure baseUOM = owner.getBaseUOM(base);
 
-			if (thisPower != 0) {
-				resultMap.put(thisUOM, thisPower);
-			}
-		}
+		result = createResult(owner, other, invert, resultForm, baseUOM);
 
-		// add any remaining multiplicand terms and invert any remaining divisor
-		// terms
-		for (Entry<UnitOfMeasure, Integer> otherEntry : otherMap.entrySet()) {
-			UnitOfMeasure otherUOM = otherEntry.getKey();
-			Integer otherPower = otherEntry.getValue();
+		// classify before caching the result
+		result.classify();
+		result.interned = true;
 
-			if (!invert) {
-				resultMap.put(otherUOM, otherPower);
-			} else {
-				resultMap.put(otherUOM, -otherPower);
-			}
-		}
+		// redefining an operand invalidates the cached result
+		this.isComponent = true;
+		other.isComponent = true;
+		resultCache.put(this, other, operation, version, base, baseUOM, result);
 
-		// get the base symbol and possibly base UOM
-		Reducer resultReducer = new Reducer();
-		resultReducer.setTerms(resultMap);
+		return result;
+	}
 
+	// a new product or quotient of this unit and the other one
+	private UnitOfMeasure createResult(MeasurementSystem owner, UnitOfMeasure other, boolean invert,
+			ReducedForm resultForm, UnitOfMeasure baseUOM) throws Exception {
 		// product or quotient
-		UnitOfMeasure result = new UnitOfMeasure();
+		UnitOfMeasure result = new UnitOfMeasure(owner);
 
 		if (!invert) {
 			result.setProductUnits(this, other);
@@ -593,31 +869,58 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 
 		// constrain to a maximum length
 		if (result.getSymbol().length() > MAX_SYMBOL_LENGTH) {
-			result.setSymbol(generateIntermediateSymbol());
+			result.setSymbol(generateIntermediateSymbol(resultForm));
 		}
 
-		String base = resultReducer.buildBaseString();
-		UnitOfMeasure baseUOM = MeasurementSystem.getSystem().getBaseUOM(base);
-
 		if (baseUOM != null) {
 			// there is a conversion to the base UOM
-			double thisFactor = thisReducer.getScalingFactor();
-			double otherFactor = otherReducer.getScalingFactor();
-
-			double resultFactor = 0;
-			if (!invert) {
-				resultFactor = thisFactor * otherFactor;
-			} else {
-				resultFactor = thisFactor / otherFactor;
-			}
-			result.setScalingFactor(resultFactor);
+			result.setScalingFactor(resultForm.getScalingFactor());
 			result.setAbscissaUnit(baseUOM);
 			result.setUnitType(baseUOM.getUnitType());
 		}
-
 		return result;
 	}
 
+	// a product, quotient or bridge with a custom unit belongs to the custom
+	// unit's system, but units of two different custom systems cannot be
+	// combined
+	private MeasurementSystem getResultOwner(UnitOfMeasure other) throws Exception {
+		MeasurementSystem owner = getOwner(other);
+
+		if (owner == null) {
+			String msg = MessageFormat.format(MeasurementSystem.getMessage("different.systems"), this, other);
+			throw new Exception(msg);
+		}
+		return owner;
+	}
+
+	// the system of this unit or the other one that extends the other's, or null
+	// if neither does
+	private MeasurementSystem getOwner(UnitOfMeasure other) {
+		if (system == other.system || system == other.system.getParent()) {
+			return other.system;
+		}
+		return other.system == system.getParent() ? system : null;
+	}
+
+	// the system whose bridge graph holds the bridge of this unit
+	MeasurementSystem getBridgeOwner() {
+		MeasurementSystem owner = bridgeAbscissaUnit != null ? getOwner(bridgeAbscissaUnit) : null;
+		return owner != null ? owner : system;
+	}
+
+	// a new product or quotient that is not shared with other callers
+	private UnitOfMeasure newProductOrQuotient(UnitOfMeasure other, boolean invert) throws Exception {
+		checkOffset(this);
+		checkOffset(other);
+
+		MeasurementSystem owner = getResultOwner(other);
+		ReducedForm resultForm = ReducedForm.combine(getReducedForm(), 1, other.getReducedForm(), invert ? -1 : 1,
+				owner.getDefinitionVersion());
+
+		return createResult(owner, other, invert, resultForm, owner.getBaseUOM(resultForm.getBaseSymbol()));
+	}
+
 	/**
 	 * Multiply two units of measure to create a third one.
 	 * 
@@ -652,7 +955,7 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 		if (isValidExponent(getExponent2()) && getExponent2() < 0) {
 			inverted = getDivisor().divide(getDividend());
 		} else {
-			inverted = MeasurementSystem.getSystem().getOne().divide(this);
+			inverted = system.getOne().divide(this);
 		}
 
 		return inverted;
@@ -665,18 +968,72 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 	 * @return Base symbol
 	 * @throws Exception Exception
 	 */
-	public synchronized String getBaseSymbol() throws Exception {
-		if (baseSymbol == null) {
-			Reducer powerMap = getReducer();
-			baseSymbol = powerMap.buildBaseString();
+	public String getBaseSymbol() throws Exception {
+		return getReducedForm().getBaseSymbol();
+	}
+
+	// get the cached reduction of this unit to base units of measure
+	final ReducedForm getReducedForm() throws Exception {
+		return reduce(0);
+	}
+
+	private ReducedForm reduce(int depth) throws Exception {
+		long version = system.getDefinitionVersion();
+		ReducedForm form = reducedForm;
+
+		if (form != null && form.getVersion() == version) {
+			return form;
+		}
+
+		if (depth > MAX_RECURSIONS) {
+			String msg = MessageFormat.format(MeasurementSystem.getMessage("circular.references"), getSymbol());
+			throw new Exception(msg);
 		}
-		return baseSymbol;
+
+		// reduce the abscissa unit
+		UnitOfMeasure abscissa = getAbscissaUnit();
+		UnitOfMeasure uomOne = abscissa.getUOM1();
+
+		if (uomOne != null) {
+			// power, product or quotient of the reduced base units
+			UnitOfMeasure uomTwo = abscissa.getUOM2();
+
+			ReducedForm formOne = uomOne.reduceComponent(depth);
+			ReducedForm formTwo = null;
+			int exp2 = 0;
+
+			if (uomTwo != null) {
+				formTwo = uomTwo.reduceComponent(depth);
+				exp2 = abscissa.getExponent2();
+			}
+			form = ReducedForm.combine(formOne, abscissa.getExponent1(), formTwo, exp2, version);
+
+			if (abscissa != this) {
+				abscissa.isComponent = true;
+			}
+		} else if (abscissa.isTerminal()) {
+			// a base unit
+			boolean isOne = abscissa.equals(abscissa.system.getOne());
+			form = ReducedForm.ofBase(abscissa, isOne, version);
+
+			if (abscissa != this) {
+				abscissa.isComponent = true;
+			}
+		} else {
+			// keep reducing down the conversion path
+			form = abscissa.reduceComponent(depth);
+		}
+
+		form = form.scale(getScalingFactor(), version);
+		reducedForm = form;
+
+		return form;
 	}
 
-	private final synchronized Reducer getReducer() throws Exception {
-		Reducer reducer = new Reducer();
-		reducer.explode(this);
-		return reducer;
+	// reduce a unit that this unit is composed of
+	private ReducedForm reduceComponent(int depth) throws Exception {
+		isComponent = true;
+		return reduce(depth + 1);
 	}
 
 	/**
@@ -689,6 +1046,7 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 	 * @throws Exception Exception
 	 */
 	public synchronized void setConversion(double scalingFactor, UnitOfMeasure abscissaUnit, double offset) throws Exception {
+		detach();
 		if (abscissaUnit == null) {
 			throw new Exception(MeasurementSystem.getMessage("unit.cannot.be.null"));
 		}
@@ -701,20 +1059,32 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 		}
 
 		// unit has been previously cached, so first remove it, then cache again
-		MeasurementSystem.getSystem().unregisterUnit(this);
-		baseSymbol = null;
+		system.unregisterUnit(this);
+
+		double oldFactor = this.scalingFactor;
+		UnitOfMeasure oldAbscissa = this.abscissaUnit;
+		double oldOffset = this.offset;
 
 		this.scalingFactor = scalingFactor;
 		this.abscissaUnit = abscissaUnit;
 		this.offset = offset;
+		onDefinitionChange();
 
 		// re-cache
-		MeasurementSystem.getSystem().registerUnit(this);
+		try {
+			system.registerUnit(this);
+		} catch (Exception e) {
+			// e.g. a circular reference, so restore the previous definition
+			this.scalingFactor = oldFactor;
+			this.abscissaUnit = oldAbscissa;
+			this.offset = oldOffset;
+			onDefinitionChange();
+			system.registerUnit(this);
+			throw e;
+		}
 
 		// remove from conversion registry
-		if (conversionRegistry.containsKey(abscissaUnit)) {
-			conversionRegistry.remove(abscissaUnit);
-		}
+		conversionRegistry.remove(abscissaUnit);
 	}
 
 	/**
@@ -755,6 +1125,7 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 	 * @param offset Offset
 	 */
 	public void setOffset(double offset) {
+		detach();
 		this.offset = offset;
 	}
 
@@ -773,7 +1144,9 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 	 * @param scalingFactor Scaling factor
 	 */
 	public void setScalingFactor(double scalingFactor) {
+		detach();
 		this.scalingFactor = scalingFactor;
+		onDefinitionChange();
 	}
 
 	/**
@@ -791,7 +1164,9 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 	 * @param abscissaUnit {@link UnitOfMeasure}
 	 */
 	public void setAbscissaUnit(UnitOfMeasure abscissaUnit) {
+		detach();
 		this.abscissaUnit = abscissaUnit;
+		onDefinitionChange();
 	}
 
 	private double convertScalarToScalar(UnitOfMeasure targetUOM) {
@@ -822,8 +1197,18 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 		double targetPathFactor = targetParameters.getPathFactor();
 		UnitOfMeasure targetBase = targetParameters.getPathUOM();
 
-		// check for a base conversion unit bridge
-		double bridgeFactor = thisBase.getBridgeFactor(targetBase);
+		// check for a base conversion unit bridge, possibly over other bridges
+		double bridgeFactor = 0.0d;
+
+		if (thisBase != targetBase) {
+			MeasurementSystem owner = getOwner(targetUOM);
+			BridgeGraph graph = (owner != null ? owner : system).getBridgeGraph();
+			bridgeFactor = graph.getFactor(thisBase, targetBase);
+		}
+
+		if (bridgeFactor == 0.0d) {
+			bridgeFactor = thisBase.getBridgeFactor(targetBase);
+		}
 
 		if (bridgeFactor != 0.0d) {
 			thisPathFactor = thisPathFactor * bridgeFactor;
@@ -834,17 +1219,69 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 	}
 
 	private static void checkTypes(UnitOfMeasure uom1, UnitOfMeasure uom2) throws Exception {
-		UnitType thisType = uom1.getUnitType();
-		UnitType targetType = uom2.getUnitType();
-
-		if (thisType != UnitType.UNCLASSIFIED && targetType != UnitType.UNCLASSIFIED && !thisType.equals(UnitType.UNITY)
-				&& !targetType.equals(UnitType.UNITY) && !thisType.equals(targetType)) {
+		if (!isSameType(uom1, uom2)) {
 			String msg = MessageFormat.format(MeasurementSystem.getMessage("must.be.same.as"), uom1, uom1.getUnitType(),
 					uom2, uom2.getUnitType());
 			throw new Exception(msg);
 		}
 	}
 
+	// true if neither type prevents a conversion between the units
+	private static boolean isSameType(UnitOfMeasure uom1, UnitOfMeasure uom2) {
+		UnitType thisType = uom1.getUnitType();
+		UnitType targetType = uom2.getUnitType();
+
+		return thisType == UnitType.UNCLASSIFIED || targetType == UnitType.UNCLASSIFIED
+				|| thisType.equals(UnitType.UNITY) || targetType.equals(UnitType.UNITY) || thisType.equals(targetType);
+	}
+
+	/**
+	 * Check whether this unit of measure can be converted to the target unit of
+	 * measure. Unlike {@link #getConversionFactor(UnitOfMeasure)}, no exception
+	 * is created for incompatible units, so this check is inexpensive.
+	 * 
+	 * @param targetUOM Target {@link UnitOfMeasure}
+	 * @return True if convertible
+	 */
+	public boolean isConvertibleTo(UnitOfMeasure targetUOM) {
+		if (targetUOM == null) {
+			return false;
+		}
+
+		if (targetUOM == this || getCachedFactor(targetUOM) != null) {
+			return true;
+		}
+
+		if (!isSameType(this, targetUOM)) {
+			return false;
+		}
+
+		try {
+			return getReducedForm().isConvertibleTo(targetUOM.getReducedForm());
+		} catch (Exception e) {
+			// e.g. a circular reference
+			throw new IllegalStateException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Convert an amount in this unit of measure to the target unit of measure
+	 * without throwing an exception for incompatible units.
+	 * 
+	 * @param amount    Amount in this unit of measure
+	 * @param targetUOM Target {@link UnitOfMeasure}
+	 * @return Converted amount, or NaN if this unit of measure cannot be converted
+	 *         to the target
+	 */
+	public double tryConvert(double amount, UnitOfMeasure targetUOM) {
+		double multiplier = tryConversionFactor(targetUOM);
+
+		if (Double.isNaN(multiplier)) {
+			return Double.NaN;
+		}
+		return (amount + getOffset()) * multiplier - targetUOM.getOffset();
+	}
+
 	/**
 	 * Get the factor to convert to the unit of measure
 	 * 
@@ -857,69 +1294,189 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 			throw new Exception(MeasurementSystem.getMessage("unit.cannot.be.null"));
 		}
 
-		// first check the cache
-		Double cachedFactor = conversionRegistry.get(targetUOM);
+		double factor = findConversionFactor(targetUOM);
+
+		if (Double.isNaN(factor)) {
+			// report a type mismatch before incompatible base units
+			checkTypes(this, targetUOM);
 
-		if (cachedFactor != null) {
-			return cachedFactor;
+			String msg = MessageFormat.format(MeasurementSystem.getMessage("incompatible.units"), this, targetUOM);
+			throw new Exception(msg);
 		}
+		return factor;
+	}
 
-		checkTypes(this, targetUOM);
+	// the cached factor to convert to the unit of measure, or null
+	private Double getCachedFactor(UnitOfMeasure targetUOM) {
+		Unit fromUnit = getEnumeration();
+		Unit toUnit = targetUOM.getEnumeration();
 
-		Reducer fromReducer = getReducer();
-		Reducer toReducer = targetUOM.getReducer();
+		if (fromUnit != null && toUnit != null && targetUOM.system == system) {
+			double matrixFactor = system.getConversionMatrix().getFactor(fromUnit, toUnit);
+			return !Double.isNaN(matrixFactor) ? matrixFactor : null;
+		}
+		double factor = getRegisteredFactor(targetUOM, getFactorVersion(targetUOM));
+		return !Double.isNaN(factor) ? factor : null;
+	}
 
-		Map<UnitOfMeasure, Integer> fromMap = fromReducer.getTerms();
-		Map<UnitOfMeasure, Integer> toMap = toReducer.getTerms();
+	// the factor to convert to the unit of measure, or NaN if not convertible or
+	// null, without a checked exception
+	double tryConversionFactor(UnitOfMeasure targetUOM) {
+		if (targetUOM == null) {
+			return Double.NaN;
+		}
 
-		if (fromMap.size() != toMap.size()) {
-			String msg = MessageFormat.format(MeasurementSystem.getMessage("incompatible.units"), this, targetUOM);
-			throw new Exception(msg);
+		try {
+			return findConversionFactor(targetUOM);
+		} catch (Exception e) {
+			// e.g. a circular reference
+			throw new IllegalStateException(e.getMessage(), e);
 		}
+	}
 
-		double fromFactor = fromReducer.getScalingFactor();
-		double toFactor = toReducer.getScalingFactor();
+	// the factor to convert to the unit of measure, or NaN if not convertible
+	private double findConversionFactor(UnitOfMeasure targetUOM) throws Exception {
+		// first check the cache, pre-defined units by enumeration and custom units
+		// by unit of measure
+		Unit fromUnit = getEnumeration();
+		Unit toUnit = targetUOM.getEnumeration();
+		ConversionMatrix matrix = null;
+		long version = getFactorVersion(targetUOM);
+
+		if (fromUnit != null && toUnit != null && targetUOM.system == system) {
+			matrix = system.getConversionMatrix();
+			double matrixFactor = matrix.getFactor(fromUnit, toUnit);
+
+			if (!Double.isNaN(matrixFactor)) {
+				return matrixFactor;
+			}
+		} else {
+			double cachedFactor = getRegisteredFactor(targetUOM, version);
+
+			if (!Double.isNaN(cachedFactor)) {
+				return cachedFactor;
+			}
+		}
+
+		if (!isSameType(this, targetUOM)) {
+			return Double.NaN;
+		}
+
+		ReducedForm fromForm = getReducedForm();
+		ReducedForm toForm = targetUOM.getReducedForm();
+
+		if (!fromForm.isConvertibleTo(toForm)) {
+			return Double.NaN;
+		}
+
+		double fromFactor = fromForm.getScalingFactor();
+		double toFactor = toForm.getScalingFactor();
 
 		double factor = 1.0d;
 
 		// compute map factor
-		int matchCount = 0;
-
-		for (Entry<UnitOfMeasure, Integer> fromEntry : fromMap.entrySet()) {
-			UnitType fromType = fromEntry.getKey().getUnitType();
-			UnitOfMeasure fromUOM = fromEntry.getKey();
-			Integer fromPower = fromEntry.getValue();
+		for (int i = 0; i < fromForm.size(); i++) {
+			UnitOfMeasure fromUOM = fromForm.getUnit(i);
+			UnitType fromType = fromUOM.getUnitType();
+			int fromPower = fromForm.getExponent(i);
 
-			for (Entry<UnitOfMeasure, Integer> toEntry : toMap.entrySet()) {
-				UnitType toType = toEntry.getKey().getUnitType();
+			for (int j = 0; j < toForm.size(); j++) {
+				UnitOfMeasure toUOM = toForm.getUnit(j);
 
-				if (fromType.equals(toType)) {
-					matchCount++;
-					UnitOfMeasure toUOM = toEntry.getKey();
+				if (fromType.equals(toUOM.getUnitType())) {
 					double bd = fromUOM.convertScalarToScalar(toUOM);
 					bd = Math.pow(bd, fromPower);
 					factor = factor * bd;
 					break;
 				}
-			} // to map
-		} // from map
-
-		if (matchCount != fromMap.size()) {
-			String msg = MessageFormat.format(MeasurementSystem.getMessage("incompatible.units"), this, targetUOM);
-			throw new Exception(msg);
-		}
+			} // to form
+		} // from form
 
 		double scaling = fromFactor / toFactor;
-		cachedFactor = factor * scaling;
+		double conversionFactor = factor * scaling;
 
 		// cache it
-		conversionRegistry.put(targetUOM, cachedFactor);
+		if (matrix != null) {
+			matrix.setFactor(fromUnit, toUnit, conversionFactor);
+		} else {
+			conversionRegistry.put(targetUOM, new CachedFactor(conversionFactor, version));
+		}
 
-		return cachedFactor;
+		return conversionFactor;
+	}
 
+	/**
+	 * Resolve the conversion to the target unit of measure into a
+	 * {@link ConversionPlan} that can be held and applied to raw amounts
+	 *
+	 * @param targetUOM Target {@link UnitOfMeasure}
+	 * @return {@link ConversionPlan}
+	 * @throws IllegalArgumentException if the target is null or this unit of
+	 *                                  measure cannot be converted to it
+	 */
+	public ConversionPlan getConversionPlan(UnitOfMeasure targetUOM) {
+		try {
+			return new ConversionPlan(this, targetUOM);
+		} catch (Exception e) {
+			throw new IllegalArgumentException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Get a function that converts an amount in this unit of measure to the
+	 * target unit of measure. The conversion is resolved when the function is
+	 * created, so applying it is only a multiply-add. If the conversion of
+	 * either unit of measure is subsequently changed, a new function must be
+	 * created.
+	 * 
+	 * @param targetUOM Target {@link UnitOfMeasure}
+	 * @return {@link DoubleUnaryOperator}
+	 * @throws IllegalArgumentException if the target is null or this unit of
+	 *                                  measure cannot be converted to it
+	 */
+	public DoubleUnaryOperator converterTo(UnitOfMeasure targetUOM) {
+		return getConversionPlan(targetUOM).toOperator();
+	}
+
+	// the root unit of the conversion path. Redefining this unit or one on its
+	// path changes the definition version.
+	UnitOfMeasure getPathRoot() {
+		isComponent = true;
+		return traversePath().getPathUOM();
+	}
+
+	// the factor to convert to the root unit of the conversion path
+	double getPathFactor() {
+		isComponent = true;
+		return traversePath().getPathFactor();
+	}
+
+	// id of this unit in packed measures
+	int getUnitId() {
+		return unitId;
+	}
+
+	void setUnitId(int id) {
+		this.unitId = id;
+	}
+
+	// the cached simplification of this unit
+	NamedUnitIndex.Simplification getSimplification() {
+		return simplification;
+	}
+
+	void setSimplification(NamedUnitIndex.Simplification simplification) {
+		this.simplification = simplification;
 	}
 
 	private final PathParameters traversePath() {
+		long version = system.getDefinitionVersion();
+		PathParameters path = pathParameters;
+
+		if (path != null && path.getVersion() == version) {
+			return path;
+		}
+
 		UnitOfMeasure pathUOM = this;
 		double pathFactor = 1.0d;
 
@@ -933,11 +1490,17 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 				break;
 			}
 
+			// redefining a unit on the path invalidates the cached path
+			abscissa.isComponent = true;
+
 			// next UOM on path
 			pathUOM = abscissa;
 		}
 
-		return new PathParameters(pathUOM, pathFactor);
+		path = new PathParameters(pathUOM, pathFactor, version);
+		pathParameters = path;
+
+		return path;
 	}
 
 	/**
@@ -1012,6 +1575,7 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 	 * @throws Exception Exception
 	 */
 	public void setPowerUnit(UnitOfMeasure base, Integer exponent) throws Exception {
+		detach();
 		if (base == null) {
 			String msg = MessageFormat.format(MeasurementSystem.getMessage("base.cannot.be.null"), getSymbol());
 			throw new Exception(msg);
@@ -1019,7 +1583,7 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 
 		// special cases
 		if (exponent == -1) {
-			setPowerProduct(MeasurementSystem.getSystem().getOne(), 1, base, -1);
+			setPowerProduct(system.getOne(), 1, base, -1);
 		} else {
 			setPowerProduct(base, exponent);
 		}
@@ -1045,9 +1609,25 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 
 	// generate a symbol for units of measure created as the result of
 	// intermediate multiplication and division operations. These symbols are
-	// not cached.
-	private static String generateIntermediateSymbol() {
-		return Long.toHexString(System.currentTimeMillis());
+	// not cached. The symbol is a 64-bit FNV-1a hash of the base symbol and
+	// scaling factor, so the same unit always gets the same symbol.
+	private static String generateIntermediateSymbol(ReducedForm form) {
+		long hash = FNV_OFFSET_BASIS;
+		String baseSymbol = form.getBaseSymbol();
+
+		for (int i = 0; i < baseSymbol.length(); i++) {
+			char c = baseSymbol.charAt(i);
+			hash = (hash ^ (c & 0xFF)) * FNV_PRIME;
+			hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+		}
+
+		long bits = Double.doubleToLongBits(form.getScalingFactor());
+
+		for (int i = 0; i < Long.BYTES; i++) {
+			hash = (hash ^ ((bits >>> (8 * i)) & 0xFF)) * FNV_PRIME;
+		}
+		// at most 13 characters
+		return Long.toString(hash >>> 1, Character.MAX_RADIX);
 	}
 
 	static String generatePowerSymbol(UnitOfMeasure base, Integer exponent) {
@@ -1081,6 +1661,7 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 	 * @throws Exception Exception
 	 */
 	public void setProductUnits(UnitOfMeasure multiplier, UnitOfMeasure multiplicand) throws Exception {
+		detach();
 		if (multiplier == null) {
 			String msg = MessageFormat.format(MeasurementSystem.getMessage("multiplier.cannot.be.null"), getSymbol());
 			throw new Exception(msg);
@@ -1120,6 +1701,7 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 	 * @throws Exception Exception
 	 */
 	public void setQuotientUnits(UnitOfMeasure dividend, UnitOfMeasure divisor) throws Exception {
+		detach();
 		if (dividend == null) {
 			String msg = MessageFormat.format(MeasurementSystem.getMessage("dividend.cannot.be.null"), getSymbol());
 			throw new Exception(msg);
@@ -1158,7 +1740,7 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 	 * @throws Exception Exception
 	 */
 	public Map<UnitOfMeasure, Integer> getBaseUnitsOfMeasure() throws Exception {
-		return getReducer().getTerms();
+		return getReducedForm().getTerms();
 	}
 
 	/**
@@ -1169,7 +1751,7 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 	 * @throws Exception Exception
 	 */
 	public UnitOfMeasure power(int exponent) throws Exception {
-		return MeasurementSystem.getSystem().createPowerUOM(this, exponent);
+		return system.createPowerUOM(this, exponent);
 	}
 
 	/**
@@ -1181,45 +1763,33 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 	 */
 	public UnitOfMeasure classify() throws Exception {
 
-		if (!getUnitType().equals(UnitType.UNCLASSIFIED)) {
+		if (!getUnitType().equals(UnitType.UNCLASSIFIED) || interned) {
 			// already classified
 			return this;
 		}
 
-		// base unit map
-		Map<UnitOfMeasure, Integer> uomBaseMap = getReducer().getTerms();
+		// base units
+		ReducedForm form = getReducedForm();
 
-		// try to find this map in the unit types
-		UnitType matchedType = UnitType.UNCLASSIFIED;
+		// exponents of the fundamental types, one base unit per type
+		int[] exponents = new int[UnitType.DIMENSIONS];
+		boolean[] used = new boolean[UnitType.DIMENSIONS];
 
-		for (UnitType uomType : UnitType.values()) {
-			Map<UnitType, Integer> unitTypeMap = uomType.getTypeMap();
+		for (int i = 0; i < form.size(); i++) {
+			int dimension = UnitType.getDimension(form.getUnit(i).getUnitType());
 
-			if (unitTypeMap.entrySet().size() != uomBaseMap.size()) {
-				// not a match
-				continue;
-			}
-
-			boolean match = true;
-
-			// same size, now check base unit types and exponents
-			for (Entry<UnitOfMeasure, Integer> uomBaseEntry : uomBaseMap.entrySet()) {
-				UnitType uomBaseType = uomBaseEntry.getKey().getUnitType();
-				Integer unitValue = unitTypeMap.get(uomBaseType);
-
-				if (unitValue == null || !unitValue.equals(uomBaseEntry.getValue())) {
-					// not a match
-					match = false;
-					break;
-				}
-			}
-
-			if (match) {
-				matchedType = uomType;
-				break;
+			if (dimension < 0 || used[dimension]) {
+				// not composed of distinct fundamental types, e.g. m.ft
+				return this;
 			}
+			used[dimension] = true;
+			exponents[dimension] = form.getExponent(i);
 		}
 
+		// look up the unit type with these exponents
+		long signature = UnitType.getSignature(exponents);
+		UnitType matchedType = UnitType.fromSignature(signature);
+
 		if (!matchedType.equals(UnitType.UNCLASSIFIED)) {
 			setUnitType(matchedType);
 		}
@@ -1227,14 +1797,29 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 		return this;
 	}
 
+	// a cached conversion factor and the definition version it was computed for
+	private static final class CachedFactor {
+		private final double factor;
+		private final long version;
+
+		private CachedFactor(double factor, long version) {
+			this.factor = factor;
+			this.version = version;
+		}
+	}
+
 	// UOM, scaling factor and power cumulative along a conversion path
-	private class PathParameters {
-		private UnitOfMeasure pathUOM;
-		private double pathFactor;
+	private static final class PathParameters {
+		private final UnitOfMeasure pathUOM;
+		private final double pathFactor;
+
+		// definition version the path was traversed for
+		private final long version;
 
-		private PathParameters(UnitOfMeasure pathUOM, double pathFactor) {
+		private PathParameters(UnitOfMeasure pathUOM, double pathFactor, long version) {
 			this.pathUOM = pathUOM;
 			this.pathFactor = pathFactor;
+			this.version = version;
 		}
 
 		private UnitOfMeasure getPathUOM() {
@@ -1244,242 +1829,20 @@ public class UnitOfMeasure extends Symbolic implements Comparable<UnitOfMeasure>
 		private double getPathFactor() {
 			return pathFactor;
 		}
-	}
-
-	// reduce a unit of measure to its most basic scalar units of measure.
-	private class Reducer {
-		private static final int MAX_RECURSIONS = 100;
-
-		// starting level
-		private static final int STARTING_LEVEL = -1;
-
-		// UOMs and their exponents
-		private Map<UnitOfMeasure, Integer> terms = new HashMap<>();
-
-		// the overall scaling factor
-		private double mapScalingFactor = 1.0d;
-
-		// list of exponents down a path to the leaf UOM
-		private List<Integer> pathExponents = new ArrayList<>();
-
-		// recursion counter
-		private int counter = 0;
-
-		private Reducer() {
 
+		private long getVersion() {
+			return version;
 		}
+	}
 
-		@Override
-		public String toString() {
-			return mapScalingFactor + ", " + terms.toString();
-		}
-
-		private double getScalingFactor() {
-			return this.mapScalingFactor;
-		}
-
-		private Map<UnitOfMeasure, Integer> getTerms() {
-			return terms;
-		}
-
-		private void setTerms(Map<UnitOfMeasure, Integer> terms) {
-			this.terms = terms;
-		}
-
-		private void explode(UnitOfMeasure unit) throws Exception {
-			explodeRecursively(unit, STARTING_LEVEL);
-		}
-
-		private void explodeRecursively(final UnitOfMeasure unit, int level) throws Exception {
-			if (++counter > MAX_RECURSIONS) {
-				String msg = MessageFormat.format(MeasurementSystem.getMessage("circular.references"),
-						unit.getSymbol());
-				throw new Exception(msg);
-			}
-
-			// down a level
-			level++;
-
-			// scaling factor to abscissa unit
-			double unitFactor = unit.getScalingFactor();
-
-			// explode the abscissa unit
-			UnitOfMeasure uomUnit = unit.getAbscissaUnit();
-
-			UnitOfMeasure uomOne = uomUnit.getUOM1();
-			UnitOfMeasure uomTwo = uomUnit.getUOM2();
-
-			Integer exp1 = uomUnit.getExponent1();
-			Integer exp2 = uomUnit.getExponent2();
-
-			// scaling
-			if (!pathExponents.isEmpty()) {
-				int lastExponent = pathExponents.get(pathExponents.size() - 1);
-
-				// compute the overall scaling factor
-				double factor = 1.0d;
-				for (int i = 0; i < Math.abs(lastExponent); i++) {
-					factor = factor * unitFactor;
-				}
-
-				if (lastExponent < 0) {
-					mapScalingFactor = mapScalingFactor / factor;
-				} else {
-					mapScalingFactor = mapScalingFactor * factor;
-				}
-			} else {
-				mapScalingFactor = unitFactor;
-			}
-
-			if (uomOne == null) {
-				if (!uomUnit.isTerminal()) {
-					// keep exploding down the conversion path
-					double currentMapFactor = mapScalingFactor;
-					mapScalingFactor = 1.0d;
-					explodeRecursively(uomUnit, STARTING_LEVEL);
-					mapScalingFactor = mapScalingFactor * currentMapFactor;
-				} else {
-
-					// multiply out all of the exponents down the path
-					int pathExponent = 1;
-
-					for (Integer exp : pathExponents) {
-						pathExponent = pathExponent * exp;
-					}
-
-					boolean invert = pathExponent < 0;
-
-					for (int i = 0; i < Math.abs(pathExponent); i++) {
-						addTerm(uomUnit, invert);
-					}
-				}
-			} else {
-				// explode UOM #1
-				pathExponents.add(exp1);
-				explodeRecursively(uomOne, level);
-				pathExponents.remove(level);
-			}
-
-			if (uomTwo != null) {
-				// explode UOM #2
-				pathExponents.add(exp2);
-				explodeRecursively(uomTwo, level);
-				pathExponents.remove(level);
-			}
-		}
-
-		// add a UOM and exponent pair to the map of reduced terms
-		private void addTerm(UnitOfMeasure uom, boolean invert) throws Exception {
-			int unitPower = 1;
-			int power = 0;
-
-			if (!invert) {
-				// get existing power
-				if (!terms.containsKey(uom)) {
-					// add first time
-					power = unitPower;
-				} else {
-					// increment existing power
-					if (!uom.equals(MeasurementSystem.getSystem().getOne())) {
-						power = terms.get(uom).intValue() + unitPower;
-					}
-				}
-			} else {
-				// denominator with negative powers
-				if (!terms.containsKey(uom)) {
-					// add first time
-					power = -unitPower;
-				} else {
-					// decrement existing power
-					if (!uom.equals(MeasurementSystem.getSystem().getOne())) {
-						power = terms.get(uom).intValue() - unitPower;
-					}
-				}
-			}
+	// a prefix and the unit of measure it scales
+	private static final class PrefixedFrom {
+		private final Prefix prefix;
+		private final UnitOfMeasure targetUOM;
 
-			if (power == 0) {
-				terms.remove(uom);
-			} else {
-				if (!uom.equals(MeasurementSystem.getSystem().getOne())) {
-					terms.put(uom, power);
-				}
-			}
+		private PrefixedFrom(Prefix prefix, UnitOfMeasure targetUOM) {
+			this.prefix = prefix;
+			this.targetUOM = targetUOM;
 		}
-
-		// compose the base symbol
-		private String buildBaseString() throws Exception {
-			StringBuilder numerator = new StringBuilder();
-			StringBuilder denominator = new StringBuilder();
-
-			int numeratorCount = 0;
-			int denominatorCount = 0;
-
-			// sort units by symbol (ascending)
-			SortedSet<UnitOfMeasure> keys = new TreeSet<>(terms.keySet());
-
-			for (UnitOfMeasure keyUnit : keys) {
-				int power = terms.get(keyUnit);
-
-				if (power < 0) {
-					// negative, put in denominator
-					if (denominator.length() > 0) {
-						denominator.append(MULT);
-					}
-
-					if (!keyUnit.equals(MeasurementSystem.getSystem().getOne())) {
-						denominator.append(keyUnit.getSymbol());
-						denominatorCount++;
-					}
-
-					if (power < -1) {
-						if (power == -2) {
-							denominator.append(SQ);
-						} else if (power == -3) {
-							denominator.append(CUBED);
-						} else {
-							denominator.append(POW).append(Math.abs(power));
-						}
-					}
-				} else if (power >= 1 && !keyUnit.equals(MeasurementSystem.getSystem().getOne())) {
-					// positive, put in numerator
-					if (numerator.length() > 0) {
-						numerator.append(MULT);
-					}
-
-					numerator.append(keyUnit.getSymbol());
-					numeratorCount++;
-
-					if (power > 1) {
-						if (power == 2) {
-							numerator.append(SQ);
-						} else if (power == 3) {
-							numerator.append(CUBED);
-						} else {
-							numerator.append(POW).append(power);
-						}
-					}
-				} else {
-					// unary, don't add a '1'
-				}
-			}
-
-			if (numeratorCount == 0) {
-				numerator.append(ONE_CHAR);
-			}
-
-			String result = null;
-
-			if (denominatorCount == 0) {
-				result = numerator.toString();
-			} else {
-				if (denominatorCount == 1) {
-					result = numerator.append(DIV).append(denominator).toString();
-				} else {
-					result = numerator.append(DIV).append(LP).append(denominator).append(RP).toString();
-				}
-			}
-
-			return result;
-		} // end unit of measure iteration
 	}
 }
@@ -135,16 +135,68 @@ public enum UnitType {
 	// unclassified. Reserved for use when creating custom units of measure.
 	UNCLASSIFIED();
 
+	// number of fundamental types (LENGTH through LUMINOSITY) in a signature
+	static final int DIMENSIONS = 7;
+
+	// bits for the exponent of each fundamental type in a signature
+	private static final int EXPONENT_BITS = 8;
+
+	// signature of a type map that cannot be packed
+	static final long NO_SIGNATURE = -1L;
+
+	// unit type by signature, the first declared type wins
+	private static final Map<Long, UnitType> signatureIndex = new HashMap<>();
+
+	static {
+		for (UnitType unitType : values()) {
+			if (unitType.signature != NO_SIGNATURE) {
+				signatureIndex.putIfAbsent(unitType.signature, unitType);
+			}
+		}
+	}
+
 	private Map<UnitType, Integer> typeMap = new HashMap<>();
 
+	// the type map packed into a long
+	private final long signature;
+
 	@SafeVarargs
 	private UnitType(SimpleImmutableEntry<UnitType, Integer>... entries) {
+		int[] exponents = new int[DIMENSIONS];
+
 		for (SimpleImmutableEntry<UnitType, Integer> entry : entries) {
 			typeMap.put(entry.getKey(), entry.getValue());
+			exponents[getDimension(entry.getKey())] += entry.getValue();
 		}
+		signature = getSignature(exponents);
 	}
 
 	public Map<UnitType, Integer> getTypeMap() {
 		return this.typeMap;
 	}
+
+	// index of a fundamental type in a signature, or -1 if not fundamental
+	static int getDimension(UnitType unitType) {
+		int dimension = unitType.ordinal() - 1;
+		return (dimension >= 0 && dimension < DIMENSIONS) ? dimension : -1;
+	}
+
+	// pack the exponents of the fundamental types into a long, 8 bits each
+	static long getSignature(int[] exponents) {
+		long signature = 0L;
+
+		for (int i = 0; i < DIMENSIONS; i++) {
+			if (exponents[i] < Byte.MIN_VALUE || exponents[i] > Byte.MAX_VALUE) {
+				return NO_SIGNATURE;
+			}
+			signature |= (exponents[i] & 0xFFL) << (i * EXPONENT_BITS);
+		}
+		return signature;
+	}
+
+	// the unit type with this signature, or UNCLASSIFIED
+	static UnitType fromSignature(long signature) {
+		UnitType unitType = signatureIndex.get(signature);
+		return unitType != null ? unitType : UNCLASSIFIED;
+	}
 }
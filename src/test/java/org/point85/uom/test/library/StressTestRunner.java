@@ -1,71 +1,141 @@
 package org.point85.uom.test.library;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
- * Test concurrency. This test is not a JUnit test.
- * 
+ * Test concurrency. This test is not a JUnit test. The same work is run on 1,
+ * 2, 4 ... 64 threads and the throughput at each thread count is compared to
+ * the single thread throughput. Shared units such as the metre and second are
+ * read on every pass, so the speedup shows whether the read path scales. The
+ * run fails if the speedup per usable processor (the lesser of the threads and
+ * the available processors) falls below {@link #MIN_EFFICIENCY}, i.e. if the
+ * throughput does not scale nearly linearly up to the number of processors.
+ *
  * @author Kent Randall
  *
  */
 public class StressTestRunner {
-	// thread pool service
-	private ExecutorService executorService = Executors.newCachedThreadPool();
+	// largest number of threads
+	private static final int MAX_THREADS = 64;
+
+	// passes of the test per thread
+	private static final int PASSES = 5;
 
-	private static final int NUM_THREADS = 50;
+	// passes before measuring
+	private static final int WARM_UP_PASSES = 50;
 
-	private long totalMillis = 0;
+	// minimum speedup per usable processor
+	static final double MIN_EFFICIENCY = 0.7d;
 
-	private class TestRunner implements Runnable {
+	// single thread throughput (passes per second)
+	private double baseThroughput = 0.0d;
 
-		private TestPerformance test;
+	private class TestRunner implements Callable<Long> {
 
-		private int threadNumber = 0;
+		private final TestPerformance test;
 
-		TestRunner(TestPerformance test, int passCount) {
+		private final CountDownLatch startSignal;
+
+		TestRunner(TestPerformance test, CountDownLatch startSignal) {
 			this.test = test;
-			this.threadNumber = passCount;
+			this.startSignal = startSignal;
 		}
 
 		@Override
-		public void run() {
-			try {
-				System.out.println("Executing test on thread " + threadNumber);
-				long milli1 = System.currentTimeMillis();
-				test.runSingleTest();
-				long milli2 = System.currentTimeMillis();
-				long delta = milli2 - milli1;
-				totalMillis += delta;
-				System.out.println("Time (ms) for thread " + threadNumber + ": " + delta + ", total: " + totalMillis);
+		public Long call() throws Exception {
+			startSignal.await();
 
-			} catch (Exception e) {
-				e.printStackTrace();
+			long start = System.nanoTime();
+			for (int i = 0; i < PASSES; i++) {
+				test.runSingleTest();
 			}
+			return System.nanoTime() - start;
 		}
 	}
 
-	// run each test in a thread
-	public void runTests() throws Exception {
-		for (int i = 0; i < NUM_THREADS; i++) {
-			TestRunner runner = new TestRunner(new TestPerformance(), i + 1);
-			executorService.execute(runner);
+	// run the test on the number of threads, report the throughput and return
+	// the speedup per usable processor
+	public double runTests(int numThreads) throws Exception {
+		ExecutorService executorService = Executors.newFixedThreadPool(numThreads);
+		CountDownLatch startSignal = new CountDownLatch(1);
+
+		try {
+			List<Future<Long>> futures = new ArrayList<>(numThreads);
+
+			for (int i = 0; i < numThreads; i++) {
+				futures.add(executorService.submit(new TestRunner(new TestPerformance(), startSignal)));
+			}
+
+			long start = System.nanoTime();
+			startSignal.countDown();
+
+			long threadNanos = 0;
+			for (Future<Long> future : futures) {
+				threadNanos += future.get();
+			}
+			long elapsed = System.nanoTime() - start;
+
+			double throughput = (numThreads * PASSES) / (elapsed / 1.0E+09);
+
+			if (numThreads == 1) {
+				// the best single thread run
+				baseThroughput = Math.max(baseThroughput, throughput);
+			}
+			double speedup = throughput / baseThroughput;
+			int usable = Math.min(numThreads, Runtime.getRuntime().availableProcessors());
+			double efficiency = speedup / usable;
+
+			System.out.println(String.format("threads: %2d, elapsed (ms): %8.1f, mean per thread (ms): %8.1f, passes/s: %8.1f, speedup: %5.2f, efficiency: %3.0f%%",
+					numThreads, elapsed / 1.0E+06, threadNanos / 1.0E+06 / numThreads, throughput, speedup,
+					100.0d * efficiency));
+
+			return efficiency;
+		} finally {
+			executorService.shutdown();
 		}
-		System.out.println("Launched all " + NUM_THREADS + " threads.");
 	}
 
 	public void runSingleTest() throws Exception {
-		TestRunner runner = new TestRunner(new TestPerformance(), 1);
-		runner.run();
+		runTests(1);
+	}
+
+	// run on 2, 4 ... 64 threads and check the scaling
+	public void checkScaling() throws Exception {
+		for (int numThreads = 2; numThreads <= MAX_THREADS; numThreads *= 2) {
+			double efficiency = runTests(numThreads);
+
+			if (efficiency < MIN_EFFICIENCY) {
+				throw new Exception(String.format("Efficiency on %d threads is %.0f%%, less than %.0f%%", numThreads,
+						100.0d * efficiency, 100.0d * MIN_EFFICIENCY));
+			}
+		}
 	}
 
 	public static void main(String[] args) throws Exception {
 		StressTestRunner runner = new StressTestRunner();
-		System.out.println("Running all tests");
-		runner.runTests();
-		
+		System.out.println("Available processors: " + Runtime.getRuntime().availableProcessors());
+
+		// warm up
+		// compile the hot paths before the single thread throughput is measured
+		System.out.println("Warming up");
+		TestPerformance warmUp = new TestPerformance();
+		for (int i = 0; i < WARM_UP_PASSES; i++) {
+			warmUp.runSingleTest();
+		}
+
 		System.out.println("Running single test");
-		runner.runSingleTest();
+		for (int i = 0; i < 3; i++) {
+			runner.runSingleTest();
+		}
+
+		System.out.println("Running all tests");
+		runner.checkScaling();
+		System.out.println("Scaling is at least " + (int) (100 * MIN_EFFICIENCY) + "% efficient");
 	}
-	
 }
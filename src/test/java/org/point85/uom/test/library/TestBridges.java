@@ -23,10 +23,12 @@ SOFTWARE.
 */
 package org.point85.uom.test.library;
 
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import org.junit.Test;
+import org.point85.uom.MeasurementSystem;
 import org.point85.uom.Prefix;
 import org.point85.uom.Quantity;
 import org.point85.uom.Unit;
@@ -256,4 +258,66 @@ public class TestBridges extends BaseTest {
 
 		assertTrue(isCloseTo(converted.getAmount(), 0.554167d, DELTA6));
 	}
+
+	@Test
+	public void testMultipleBridges() throws Exception {
+		UnitOfMeasure m = sys.getUOM(Unit.METRE);
+		UnitOfMeasure ft = sys.getUOM(Unit.FOOT);
+		UnitOfMeasure in = sys.getUOM(Unit.INCH);
+
+		// a custom base unit bridged to the foot, which is bridged to the metre
+		UnitOfMeasure cubit = sys.createScalarUOM(UnitType.LENGTH, "cubit", "cbt", "bridge of a bridge");
+		cubit.setBridgeConversion(1.5d, ft, 0d);
+
+		assertTrue(isCloseTo(new Quantity(1d, cubit).convert(ft).getAmount(), 1.5d, DELTA6));
+		assertTrue(isCloseTo(new Quantity(1d, cubit).convert(m).getAmount(), 0.4572d, DELTA6));
+		assertTrue(isCloseTo(new Quantity(1d, cubit).convert(in).getAmount(), 18d, DELTA6));
+		assertTrue(isCloseTo(new Quantity(0.4572d, m).convert(cubit).getAmount(), 1d, DELTA6));
+
+		// and one more bridge in another system
+		MeasurementSystem tenant = new MeasurementSystem();
+		UnitOfMeasure span = tenant.createScalarUOM(UnitType.LENGTH, "span", "spn", "bridge of a bridge of a bridge");
+		span.setBridgeConversion(0.5d, cubit, 0d);
+
+		assertTrue(isCloseTo(new Quantity(1d, span).convert(m).getAmount(), 0.2286d, DELTA6));
+		assertTrue(isCloseTo(new Quantity(1d, m).convert(span).getAmount(), 1d / 0.2286d, DELTA6));
+
+		// replace a bridge
+		cubit.setBridgeConversion(2d, ft, 0d);
+		assertTrue(isCloseTo(new Quantity(1d, cubit).convert(m).getAmount(), 0.6096d, DELTA6));
+		assertTrue(isCloseTo(new Quantity(1d, span).convert(m).getAmount(), 0.3048d, DELTA6));
+
+		// a bridge to a unit of the other system belongs to that system
+		UnitOfMeasure palm = sys.createScalarUOM(UnitType.LENGTH, "palm", "plm", "bridged to the other system");
+		palm.setBridgeConversion(0.5d, span, 0d);
+		assertTrue(isCloseTo(new Quantity(1d, palm).convert(tenant.getUOM(Unit.METRE)).getAmount(), 0.1524d, DELTA6));
+		assertFalse(isCloseTo(new Quantity(1d, palm).convert(m).getAmount(), 0.1524d, DELTA6));
+	}
+
+	@Test
+	public void testRedefineBridgedUnit() throws Exception {
+		UnitOfMeasure m = sys.getUOM(Unit.METRE);
+		UnitOfMeasure ft = sys.getUOM(Unit.FOOT);
+
+		UnitOfMeasure cubit = sys.createScalarUOM(UnitType.LENGTH, "redefined cubit", "rcbt", "redefined");
+		cubit.setBridgeConversion(1.5d, ft, 0d);
+		assertTrue(isCloseTo(new Quantity(1d, cubit).convert(m).getAmount(), 0.4572d, DELTA6));
+
+		// a redefinition keeps the bridge
+		cubit.setConversion(1d, cubit);
+		assertTrue(isCloseTo(new Quantity(1d, cubit).convert(m).getAmount(), 0.4572d, DELTA6));
+		assertTrue(isCloseTo(new Quantity(1d, m).convert(cubit).getAmount(), 1d / 0.4572d, DELTA6));
+
+		// as does a unit on the path of a bridged unit
+		UnitOfMeasure ell = sys.createScalarUOM(UnitType.LENGTH, "redefined ell", "rell", "redefined");
+		ell.setConversion(2d, cubit);
+		assertTrue(isCloseTo(new Quantity(1d, ell).convert(m).getAmount(), 0.9144d, DELTA6));
+
+		cubit.setConversion(1d, cubit);
+		assertTrue(isCloseTo(new Quantity(1d, ell).convert(m).getAmount(), 0.9144d, DELTA6));
+
+		// until it is unregistered
+		sys.unregisterUnit(cubit);
+		assertFalse(isCloseTo(new Quantity(1d, cubit).convert(m).getAmount(), 0.4572d, DELTA6));
+	}
 }
@@ -23,8 +23,14 @@ SOFTWARE.
 */
 package org.point85.uom.test.library;
 
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
 import org.junit.Test;
 import org.point85.uom.Unit;
 import org.point85.uom.UnitOfMeasure;
@@ -173,4 +179,69 @@ public class TestClassification extends BaseTest {
 		
 	}
 
+	@Test
+	public void testSignatures() throws Exception {
+		Map<UnitType, UnitOfMeasure> fundamentals = new HashMap<>();
+		fundamentals.put(UnitType.LENGTH, sys.getUOM(Unit.METRE));
+		fundamentals.put(UnitType.MASS, sys.getUOM(Unit.KILOGRAM));
+		fundamentals.put(UnitType.TIME, sys.getSecond());
+		fundamentals.put(UnitType.ELECTRIC_CURRENT, sys.getUOM(Unit.AMPERE));
+		fundamentals.put(UnitType.SUBSTANCE_AMOUNT, sys.getUOM(Unit.MOLE));
+		fundamentals.put(UnitType.LUMINOSITY, sys.getUOM(Unit.CANDELA));
+
+		// every type with a type map is found, the first declared one for a
+		// duplicate such as the effective radiation dose. A luminous flux is a
+		// power of the candela and keeps its type.
+		for (UnitType unitType : UnitType.values()) {
+			if (unitType.getTypeMap().isEmpty() || unitType.equals(UnitType.RADIATION_DOSE_EFFECTIVE)
+					|| unitType.equals(UnitType.RADIOACTIVITY) || unitType.equals(UnitType.LUMINOUS_FLUX)) {
+				continue;
+			}
+
+			UnitOfMeasure uom = sys.getOne();
+
+			for (Entry<UnitType, Integer> entry : unitType.getTypeMap().entrySet()) {
+				UnitOfMeasure base = fundamentals.get(entry.getKey());
+
+				for (int i = 0; i < Math.abs(entry.getValue()); i++) {
+					uom = entry.getValue() > 0 ? uom.multiply(base) : uom.divide(base);
+				}
+			}
+			assertTrue(uom.classify().getUnitType().equals(unitType));
+		}
+
+		// different base units of the same type are not classified
+		UnitOfMeasure ft = sys.getUOM(Unit.FOOT);
+		UnitOfMeasure m = sys.getUOM(Unit.METRE);
+		UnitOfMeasure length = sys.createScalarUOM(UnitType.LENGTH, "sigLength", "sigLength", "signature");
+		assertTrue(length.multiply(m).classify().getUnitType().equals(UnitType.UNCLASSIFIED));
+		assertTrue(length.divide(m).classify().getUnitType().equals(UnitType.UNCLASSIFIED));
+
+		// not composed of fundamental types
+		UnitOfMeasure usd = sys.getUOM(Unit.US_DOLLAR);
+		assertTrue(usd.divide(m).classify().getUnitType().equals(UnitType.UNCLASSIFIED));
+	}
+
+	@Test
+	public void testMixedUnitsOfSameType() throws Exception {
+		UnitOfMeasure m = sys.getUOM(Unit.METRE);
+		UnitOfMeasure ft = sys.getUOM(Unit.FOOT);
+		UnitOfMeasure m2 = sys.getUOM(Unit.SQUARE_METRE);
+
+		// m.ft and m^3/ft keep their length terms apart
+		UnitOfMeasure mft = m.multiply(ft).classify();
+		assertTrue(mft.getUnitType().equals(UnitType.UNCLASSIFIED));
+
+		UnitOfMeasure m3PerFt = sys.getUOM(Unit.CUBIC_METRE).divide(ft).classify();
+		assertTrue(m3PerFt.getUnitType().equals(UnitType.UNCLASSIFIED));
+
+		// and are not convertible to an area
+		assertFalse(mft.isConvertibleTo(m2));
+
+		try {
+			mft.getConversionFactor(m2);
+			fail();
+		} catch (Exception e) {
+		}
+	}
 }
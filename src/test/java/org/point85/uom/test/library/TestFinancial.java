@@ -27,4 +27,23 @@ public class TestFinancial extends BaseTest {
 		assertTrue(isCloseTo(value.getAmount(), 78862.24, DELTA6));
 	}
 
+	@Test
+	public void testExchangeRateChange() throws Exception {
+		UnitOfMeasure yuan = sys.getUOM(Unit.YUAN);
+		UnitOfMeasure euro = sys.getUOM(Unit.EURO);
+
+		yuan.setConversion(0.13, euro);
+		assertTrue(isCloseTo(yuan.getConversionFactor(euro), 0.13, DELTA6));
+		assertTrue(isCloseTo(euro.getConversionFactor(yuan), 1d / 0.13, DELTA6));
+
+		// a new rate replaces the cached factors between the pre-defined currencies
+		yuan.setConversion(0.12, euro);
+		assertTrue(isCloseTo(yuan.getConversionFactor(euro), 0.12, DELTA6));
+		assertTrue(isCloseTo(euro.getConversionFactor(yuan), 1d / 0.12, DELTA6));
+
+		// restore the yuan
+		yuan.setConversion(yuan);
+		assertTrue(yuan.getConversionFactor(yuan) == 1d);
+	}
+
 }
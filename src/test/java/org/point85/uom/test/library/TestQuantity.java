@@ -28,14 +28,22 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.DoubleUnaryOperator;
 
 import org.junit.Test;
 import org.point85.uom.Constant;
+import org.point85.uom.ConversionPlan;
+import org.point85.uom.Measure;
+import org.point85.uom.MeasureArray;
 import org.point85.uom.MeasurementSystem;
 import org.point85.uom.Prefix;
 import org.point85.uom.Quantity;
+import org.point85.uom.QuantityColumn;
 import org.point85.uom.Unit;
 import org.point85.uom.UnitOfMeasure;
 import org.point85.uom.UnitType;
@@ -1271,4 +1279,405 @@ public class TestQuantity extends BaseTest {
 		portfolio_usd = portfolio.convert(usd_uom);
 		assertTrue(isCloseTo(portfolio_usd.getAmount(), 200.0, DELTA6));
 	}
+
+	@Test
+	public void testConversionPlan() throws Exception {
+		UnitOfMeasure celsius = sys.getUOM(Unit.CELSIUS);
+		UnitOfMeasure fahrenheit = sys.getUOM(Unit.FAHRENHEIT);
+		UnitOfMeasure kelvin = sys.getUOM(Unit.KELVIN);
+
+		ConversionPlan plan = celsius.getConversionPlan(fahrenheit);
+		assertTrue(plan.getFromUOM().equals(celsius));
+		assertTrue(plan.getToUOM().equals(fahrenheit));
+		assertTrue(isCloseTo(plan.convert(100d), 212d, DELTA6));
+		assertTrue(isCloseTo(plan.convert(-40d), -40d, DELTA6));
+
+		for (double amount = -50d; amount < 50d; amount += 7.5d) {
+			double expected = new Quantity(amount, celsius).convert(kelvin).getAmount();
+			assertTrue(isCloseTo(celsius.getConversionPlan(kelvin).convert(amount), expected, DELTA6));
+		}
+
+		UnitOfMeasure km = sys.getUOM(Prefix.KILO, Unit.METRE);
+		plan = km.getConversionPlan(sys.getUOM(Unit.MILE));
+		assertTrue(isCloseTo(plan.getIntercept(), 0d, DELTA6));
+		assertTrue(isCloseTo(plan.convert(1.609344), 1d, DELTA6));
+
+		try {
+			km.getConversionPlan(sys.getSecond());
+			fail();
+		} catch (IllegalArgumentException e) {
+
+		}
+
+		try {
+			km.getConversionPlan(null);
+			fail();
+		} catch (IllegalArgumentException e) {
+
+		}
+
+		// converter functions
+		DoubleUnaryOperator converter = celsius.converterTo(fahrenheit);
+		assertTrue(isCloseTo(converter.applyAsDouble(100d), 212d, DELTA6));
+		converter = km.converterTo(sys.getUOM(Unit.MILE));
+		assertTrue(isCloseTo(converter.applyAsDouble(1.609344), 1d, DELTA6));
+		converter = km.converterTo(km);
+		assertTrue(converter.applyAsDouble(2.5d) == 2.5d);
+		converter = celsius.converterTo(sys.getUOM(Unit.KELVIN));
+		assertTrue(isCloseTo(converter.applyAsDouble(100d), 373.15d, DELTA6));
+
+		try {
+			km.converterTo(sys.getSecond());
+			fail();
+		} catch (Exception e) {
+
+		}
+	}
+
+	@Test
+	public void testBulkConversion() throws Exception {
+		UnitOfMeasure celsius = sys.getUOM(Unit.CELSIUS);
+		UnitOfMeasure fahrenheit = sys.getUOM(Unit.FAHRENHEIT);
+
+		double[] src = new double[100];
+		for (int i = 0; i < src.length; i++) {
+			src[i] = i - 50d;
+		}
+
+		// whole array
+		double[] dst = new double[src.length];
+		Quantity.convert(src, celsius, fahrenheit, dst);
+
+		for (int i = 0; i < src.length; i++) {
+			double expected = new Quantity(src[i], celsius).convert(fahrenheit).getAmount();
+			assertTrue(isCloseTo(dst[i], expected, DELTA6));
+		}
+
+		// range
+		double[] range = new double[10];
+		Quantity.convert(src, 90, celsius, fahrenheit, range, 0, 10);
+		assertTrue(isCloseTo(range[0], dst[90], DELTA6));
+		assertTrue(isCloseTo(range[9], dst[99], DELTA6));
+
+		try {
+			Quantity.convert(src, 95, celsius, fahrenheit, range, 0, 10);
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+
+		}
+
+		// heap and direct buffers
+		DoubleBuffer srcBuffer = DoubleBuffer.wrap(src);
+		DoubleBuffer dstBuffer = DoubleBuffer.allocate(src.length);
+		Quantity.convert(srcBuffer, celsius, fahrenheit, dstBuffer);
+		assertFalse(srcBuffer.hasRemaining());
+		assertFalse(dstBuffer.hasRemaining());
+		assertTrue(isCloseTo(dstBuffer.get(0), dst[0], DELTA6));
+
+		srcBuffer.rewind();
+		dstBuffer = ByteBuffer.allocateDirect(src.length * Double.BYTES).asDoubleBuffer();
+		Quantity.convert(srcBuffer, celsius, fahrenheit, dstBuffer);
+		assertTrue(isCloseTo(dstBuffer.get(src.length - 1), dst[src.length - 1], DELTA6));
+
+		// in place
+		double[] amounts = new double[] { 1d, 2d, 3d };
+		Quantity.convert(amounts, sys.getUOM(Prefix.KILO, Unit.METRE), sys.getUOM(Unit.METRE), amounts);
+		assertTrue(isCloseTo(amounts[2], 3000d, DELTA6));
+	}
+
+	@Test
+	public void testMeasure() throws Exception {
+		UnitOfMeasure metre = sys.getUOM(Unit.METRE);
+		UnitOfMeasure foot = sys.getUOM(Unit.FOOT);
+
+		Measure m1 = new Measure(1.0d, metre);
+		Measure m2 = new Measure(1.0d, Unit.FOOT);
+
+		// arithmetic in the first measure's unit
+		Measure sum = m1.add(m2);
+		assertTrue(sum.getUOM().equals(metre));
+		assertTrue(isCloseTo(sum.getAmount(), 1.3048d, DELTA6));
+		assertTrue(isCloseTo(m1.subtract(m2).getAmount(), 0.6952d, DELTA6));
+		assertTrue(isCloseTo(m1.multiply(3.0d).getAmount(), 3.0d, DELTA6));
+		assertTrue(isCloseTo(m1.divide(4.0d).getAmount(), 0.25d, DELTA6));
+		assertTrue(m1.multiply(m1).getUOM().equals(sys.getUOM(Unit.SQUARE_METRE)));
+
+		Measure converted = m1.convert(foot);
+		assertTrue(isCloseTo(converted.getAmount(), 3.280839895d, DELTA6));
+		assertTrue(m1.convert(metre) == m1);
+		assertTrue(m1.compare(m2) > 0);
+		assertTrue(m2.compareTo(m1) < 0);
+
+		// offsets
+		Measure celsius = new Measure(100.0d, Unit.CELSIUS).convert(sys.getUOM(Unit.FAHRENHEIT));
+		assertTrue(isCloseTo(celsius.getAmount(), 212.0d, DELTA6));
+
+		// quantity interoperability
+		Quantity q = m1.toQuantity();
+		assertTrue(q.equals(new Quantity(1.0d, metre)));
+		assertTrue(q.toMeasure().equals(m1));
+		assertTrue(new Measure(q).hashCode() == m1.hashCode());
+
+		// packed form
+		ByteBuffer buffer = ByteBuffer.allocate(2 * Measure.BYTES);
+		m1.put(buffer);
+		m2.put(buffer);
+		assertTrue(buffer.position() == 24);
+		buffer.flip();
+		assertTrue(Measure.get(buffer).equals(m1));
+		assertTrue(Measure.get(buffer).equals(m2));
+
+		MeasureArray array = new MeasureArray(2);
+		array.set(0, m1);
+		array.set(1, 2.0d, foot);
+		assertTrue(array.size() == 2);
+		assertTrue(array.get(0).equals(m1));
+		assertTrue(array.getUOM(1) == foot);
+		assertTrue(isCloseTo(array.getAmount(1), 2.0d, DELTA6));
+		assertTrue(sys.getUOMById(sys.getUnitId(foot)) == foot);
+
+		// ids of another system
+		MeasurementSystem tenant = new MeasurementSystem();
+		UnitOfMeasure tenantFoot = tenant.getUOM(Unit.FOOT);
+		UnitOfMeasure rod = tenant.createScalarUOM(UnitType.LENGTH, "rod", "rd", "tenant unit");
+		rod.setConversion(16.5d, tenantFoot);
+
+		Measure m3 = new Measure(3.0d, rod);
+		Measure m4 = new Measure(4.0d, tenantFoot);
+		buffer.clear();
+		m3.put(buffer);
+		m4.put(buffer);
+		buffer.flip();
+		assertTrue(Measure.get(buffer, tenant).equals(m3));
+		assertTrue(Measure.get(buffer, tenant).equals(m4));
+
+		MeasureArray tenantArray = new MeasureArray(2, tenant);
+		tenantArray.set(0, m3);
+		tenantArray.set(1, m4);
+		assertTrue(tenantArray.getUOM(0) == rod);
+		assertTrue(tenantArray.get(1).equals(m4));
+
+		try {
+			array.set(0, m3);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+
+		try {
+			m1.divide(0.0d);
+			fail();
+		} catch (Exception e) {
+		}
+
+		try {
+			sys.getUOMById(-1);
+			fail();
+		} catch (Exception e) {
+		}
+
+		try {
+			m1.add(new Measure(1.0d, Unit.SECOND));
+			fail();
+		} catch (Exception e) {
+		}
+	}
+
+	@Test
+	public void testQuantityColumn() throws Exception {
+		UnitOfMeasure metre = sys.getUOM(Unit.METRE);
+		UnitOfMeasure foot = sys.getUOM(Unit.FOOT);
+
+		QuantityColumn column = new QuantityColumn(new double[] { 1.0d, 4.0d, -2.0d, 5.0d }, metre);
+		assertTrue(column.size() == 4);
+		assertTrue(isCloseTo(column.sum().getAmount(), 8.0d, DELTA6));
+		assertTrue(isCloseTo(column.min().getAmount(), -2.0d, DELTA6));
+		assertTrue(isCloseTo(column.max().getAmount(), 5.0d, DELTA6));
+		assertTrue(isCloseTo(column.mean().getAmount(), 2.0d, DELTA6));
+		assertTrue(column.mean().getUOM().equals(metre));
+
+		// slices are copies
+		QuantityColumn slice = column.slice(1, 3);
+		assertTrue(slice.size() == 2);
+		assertTrue(isCloseTo(slice.getAmount(0), 4.0d, DELTA6));
+		slice.setAmount(0, 10.0d);
+		assertTrue(isCloseTo(column.getAmount(1), 4.0d, DELTA6));
+
+		// sum with unit alignment
+		QuantityColumn feet = new QuantityColumn(new double[] { 1.0d, 1.0d, 1.0d, 1.0d }, foot);
+		QuantityColumn total = column.add(feet);
+		assertTrue(total.getUOM().equals(metre));
+		assertTrue(isCloseTo(total.getAmount(0), 1.3048d, DELTA6));
+		assertTrue(isCloseTo(feet.getAmount(0), 1.0d, DELTA6));
+
+		// in place conversion
+		column.convertTo(foot);
+		assertTrue(column.getUOM().equals(foot));
+		assertTrue(isCloseTo(column.getAmount(0), 3.280839895d, DELTA6));
+		assertTrue(column.get(0).equals(new Quantity(1.0d, metre).convert(foot)));
+
+		QuantityColumn celsius = new QuantityColumn(new double[] { 0.0d, 100.0d }, sys.getUOM(Unit.CELSIUS));
+		celsius.convertTo(sys.getUOM(Unit.FAHRENHEIT));
+		assertTrue(isCloseTo(celsius.getAmount(0), 32.0d, DELTA6));
+		assertTrue(isCloseTo(celsius.getAmount(1), 212.0d, DELTA6));
+
+		QuantityColumn empty = new QuantityColumn(0, metre);
+		assertTrue(isCloseTo(empty.sum().getAmount(), 0.0d, DELTA6));
+
+		try {
+			empty.mean();
+			fail();
+		} catch (Exception e) {
+		}
+
+		try {
+			column.add(slice);
+			fail();
+		} catch (Exception e) {
+		}
+
+		try {
+			column.convertTo(sys.getSecond());
+			fail();
+		} catch (Exception e) {
+		}
+	}
+
+	@Test
+	public void testAutoScale() throws Exception {
+		UnitOfMeasure metre = sys.getUOM(Unit.METRE);
+
+		Quantity q = new Quantity(1500d, metre).autoScale();
+		assertTrue(isCloseTo(q.getAmount(), 1.5d, DELTA6));
+		assertTrue(q.getUOM() == sys.getUOM(Prefix.KILO, metre));
+
+		// the prefixed unit is reused
+		assertTrue(new Quantity(2500d, metre).autoScale().getUOM() == q.getUOM());
+
+		// the prefix is replaced
+		q = new Quantity(0.002d, sys.getUOM(Prefix.KILO, metre)).autoScale();
+		assertTrue(isCloseTo(q.getAmount(), 2d, DELTA6));
+		assertTrue(q.getUOM() == metre);
+
+		q = new Quantity(-0.00045d, metre).autoScale();
+		assertTrue(isCloseTo(q.getAmount(), -450d, DELTA6));
+		assertTrue(q.getUOM() == sys.getUOM(Prefix.MICRO, metre));
+
+		q = new Quantity(1000d, metre).autoScale();
+		assertTrue(isCloseTo(q.getAmount(), 1d, DELTA6));
+
+		q = new Quantity(999d, metre).autoScale();
+		assertTrue(isCloseTo(q.getAmount(), 999d, DELTA6));
+		assertTrue(q.getUOM() == metre);
+
+		// binary prefixes
+		UnitOfMeasure bytes = sys.getUOM(Unit.BYTE);
+		q = new Quantity(2048d, bytes).autoScale(true);
+		assertTrue(isCloseTo(q.getAmount(), 2d, DELTA6));
+		assertTrue(q.getUOM() == sys.getUOM(Prefix.KIBI, bytes));
+
+		q = new Quantity(3d * 1024d * 1024d * 1024d * 1024d, bytes).autoScale(true);
+		assertTrue(isCloseTo(q.getAmount(), 3072d, DELTA6));
+		assertTrue(q.getUOM() == sys.getUOM(Prefix.GIBI, bytes));
+
+		// unchanged
+		Quantity celsius = new Quantity(1500d, Unit.CELSIUS);
+		assertTrue(celsius.autoScale() == celsius);
+		Quantity zero = new Quantity(0d, metre);
+		assertTrue(zero.autoScale() == zero);
+	}
+
+	@Test
+	public void testSimplify() throws Exception {
+		UnitOfMeasure newton = sys.getUOM(Unit.NEWTON);
+		UnitOfMeasure metre = sys.getUOM(Unit.METRE);
+
+		// N·m is a joule
+		Quantity q = new Quantity(2d, newton).multiply(new Quantity(3d, metre));
+		Quantity simplified = q.simplify();
+		assertTrue(simplified.getUOM() == sys.getUOM(Unit.JOULE));
+		assertTrue(isCloseTo(simplified.getAmount(), 6d, DELTA6));
+		assertTrue(q.simplify().getUOM() == simplified.getUOM());
+
+		// the scaling factor must match too
+		q = new Quantity(1d, sys.getUOM(Unit.WATT)).multiply(new Quantity(1d, Unit.HOUR));
+		assertTrue(q.simplify().getUOM() == sys.getUOM(Unit.WATT_HOUR));
+
+		// a named unit is unchanged
+		Quantity joules = new Quantity(1d, Unit.JOULE);
+		assertTrue(joules.simplify() == joules);
+
+		// no named equivalent
+		q = new Quantity(1d, Unit.KILOGRAM).multiply(new Quantity(1d, metre));
+		assertTrue(q.simplify() == q);
+
+		// a custom unit registered later is found
+		UnitOfMeasure kgm = sys.createScalarUOM(UnitType.UNCLASSIFIED, "kilogram metre", "kg_m", "simplify");
+		kgm.setConversion(1d, q.getUOM());
+		assertTrue(q.simplify().getUOM() == kgm);
+
+		sys.unregisterUnit(kgm);
+		assertTrue(q.simplify() == q);
+
+		// the lower symbol is preferred, and the other one is found once it is
+		// unregistered
+		UnitOfMeasure kgm2 = sys.createScalarUOM(UnitType.UNCLASSIFIED, "kilogram metre 2", "kg_m2", "simplify");
+		kgm2.setConversion(1d, q.getUOM());
+		sys.registerUnit(kgm);
+		assertTrue(q.simplify().getUOM() == kgm);
+
+		sys.unregisterUnit(kgm);
+		assertTrue(q.simplify().getUOM() == kgm2);
+
+		sys.unregisterUnit(kgm2);
+		assertTrue(q.simplify() == q);
+	}
+
+	@Test
+	public void testTryConvert() throws Exception {
+		UnitOfMeasure m = sys.getUOM(Unit.METRE);
+		UnitOfMeasure ft = sys.getUOM(Unit.FOOT);
+		UnitOfMeasure kg = sys.getUOM(Unit.KILOGRAM);
+		UnitOfMeasure s = sys.getSecond();
+
+		assertTrue(m.isConvertibleTo(ft));
+		assertFalse(m.isConvertibleTo(kg));
+		assertFalse(m.isConvertibleTo(null));
+		assertTrue(m.multiply(m).isConvertibleTo(ft.multiply(ft)));
+		assertFalse(m.multiply(s).isConvertibleTo(kg.multiply(s)));
+		assertFalse(m.divide(s).isConvertibleTo(m));
+
+		assertTrue(isCloseTo(ft.tryConvert(1d, m), 0.3048d, DELTA6));
+		assertTrue(Double.isNaN(m.tryConvert(1d, kg)));
+		assertTrue(Double.isNaN(m.tryConvert(1d, null)));
+		assertTrue(isCloseTo(sys.getUOM(Unit.CELSIUS).tryConvert(100d, sys.getUOM(Unit.FAHRENHEIT)), 212d, DELTA6));
+
+		Optional<Quantity> converted = new Quantity(3d, sys.getUOM(Prefix.KILO, m)).tryConvert(m);
+		assertTrue(converted.isPresent());
+		assertTrue(isCloseTo(converted.get().getAmount(), 3000d, DELTA6));
+		assertFalse(new Quantity(3d, sys.getUOM(Prefix.KILO, m)).tryConvert(kg).isPresent());
+
+		// agrees with the conversion factor
+		List<UnitOfMeasure> uoms = new ArrayList<>();
+		uoms.add(m);
+		uoms.add(kg);
+		uoms.add(sys.getOne());
+		uoms.add(m.divide(s));
+		uoms.add(sys.getUOM(Prefix.KILO, m).divide(sys.getHour()));
+		uoms.add(sys.getUOM(Unit.NEWTON));
+		uoms.add(kg.multiply(m).divide(s.power(2)));
+		uoms.add(sys.getUOM(Unit.US_DOLLAR));
+
+		for (UnitOfMeasure from : uoms) {
+			for (UnitOfMeasure to : uoms) {
+				boolean convertible = true;
+				try {
+					from.getConversionFactor(to);
+				} catch (Exception e) {
+					convertible = false;
+				}
+				assertTrue(from.isConvertibleTo(to) == convertible);
+				assertTrue(Double.isNaN(from.tryConvert(1d, to)) == !convertible);
+			}
+		}
+	}
 }
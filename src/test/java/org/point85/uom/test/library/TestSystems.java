@@ -28,14 +28,21 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+import org.junit.Assume;
 import org.junit.Test;
+import org.point85.uom.CachePolicy;
+import org.point85.uom.CacheStatistics;
 import org.point85.uom.Constant;
+import org.point85.uom.MeasurementSystem;
+import org.point85.uom.Quantity;
 import org.point85.uom.Unit;
 import org.point85.uom.UnitOfMeasure;
 import org.point85.uom.UnitType;
@@ -117,6 +124,207 @@ public class TestSystems extends BaseTest {
 
 	}
 
+	@Test
+	public void testCreateAllUnits() throws Exception {
+		// units created on first use
+		sys.clearCache();
+		Map<Unit, String> definitions = new HashMap<>();
+
+		for (Unit unit : Unit.values()) {
+			UnitOfMeasure uom = sys.getUOM(unit);
+			definitions.put(unit, uom.getSymbol() + uom.getName() + uom.getUnitType() + uom.getBaseSymbol()
+					+ uom.getScalingFactor() + uom.getOffset() + uom.getAbscissaUnit().getSymbol());
+		}
+		int registered = sys.getRegisteredUnits().size();
+
+		// units created all at once (from the catalog snapshot if available)
+		sys.clearCache();
+		sys.createAllUnits();
+		assertTrue(sys.getRegisteredUnits().size() == registered);
+
+		for (Unit unit : Unit.values()) {
+			UnitOfMeasure uom = sys.getEnumerationCache().get(unit);
+			assertNotNull(uom);
+			assertTrue(definitions.get(unit).equals(uom.getSymbol() + uom.getName() + uom.getUnitType()
+					+ uom.getBaseSymbol() + uom.getScalingFactor() + uom.getOffset() + uom.getAbscissaUnit().getSymbol()));
+		}
+
+		assertTrue(isCloseTo(sys.getUOM(Unit.FOOT).getConversionFactor(sys.getUOM(Unit.METRE)), 0.3048, DELTA6));
+		assertTrue(isCloseTo(sys.getUOM(Unit.NEWTON).getConversionFactor(sys.getUOM(Unit.POUND_FORCE)),
+				0.224808943, DELTA6));
+		Quantity q = new Quantity(212d, Unit.FAHRENHEIT).convert(Unit.CELSIUS);
+		assertTrue(isCloseTo(q.getAmount(), 100d, DELTA6));
+
+		// already cached
+		sys.createAllUnits();
+		assertTrue(sys.getRegisteredUnits().size() == registered);
+	}
+
+	@Test
+	public void testCachePolicy() throws Exception {
+		CacheStatistics registryStats = sys.getRegistryStatistics();
+		CacheStatistics conversionStats = sys.getConversionStatistics();
+
+		UnitOfMeasure metre = sys.getUOM(Unit.METRE);
+
+		try {
+			sys.setCachePolicy(CachePolicy.LRU, 4);
+			assertTrue(sys.getCachePolicy().equals(CachePolicy.LRU));
+			assertTrue(getCustomUnitCount() <= 4);
+
+			registryStats.reset();
+
+			for (int i = 0; i < 10; i++) {
+				sys.createScalarUOM(UnitType.UNCLASSIFIED, null, UUID.randomUUID().toString(), null);
+			}
+			assertTrue(getCustomUnitCount() <= 4);
+			assertTrue(registryStats.getEvictions() >= 6);
+
+			// pre-defined units are not evicted
+			assertTrue(sys.getUOM(Unit.METRE) == metre);
+			assertTrue(sys.getUOM(metre.getSymbol()) == metre);
+
+			// conversion factors of custom units
+			UnitOfMeasure lru1 = sys.createScalarUOM(UnitType.LENGTH, "lru1", "lru1", "policy");
+			lru1.setConversion(2.0d, metre);
+			UnitOfMeasure lru2 = sys.createScalarUOM(UnitType.LENGTH, "lru2", "lru2", "policy");
+			lru2.setConversion(4.0d, metre);
+
+			conversionStats.reset();
+			assertTrue(isCloseTo(lru1.getConversionFactor(lru2), 0.5d, DELTA6));
+			assertTrue(isCloseTo(lru1.getConversionFactor(lru2), 0.5d, DELTA6));
+			assertTrue(conversionStats.getHits() == 1);
+			assertTrue(conversionStats.getMisses() == 1);
+			assertTrue(isCloseTo(conversionStats.getHitRate(), 0.5d, DELTA6));
+
+			// weak references
+			sys.setCachePolicy(CachePolicy.WEAK, 0);
+			UnitOfMeasure weak = sys.createScalarUOM(UnitType.UNCLASSIFIED, "weak", "weak", "policy");
+			assertTrue(sys.getUOM("weak") == weak);
+			assertTrue(isCloseTo(lru1.getConversionFactor(lru2), 0.5d, DELTA6));
+
+			try {
+				sys.setCachePolicy(CachePolicy.LRU, 0);
+				fail();
+			} catch (Exception e) {
+			}
+		} finally {
+			sys.setCachePolicy(CachePolicy.UNBOUNDED, 0);
+			sys.clearCache();
+		}
+	}
+
+	// registered units without an enumeration or bridge
+	private int getCustomUnitCount() {
+		int count = 0;
+
+		for (UnitOfMeasure uom : sys.getRegisteredUnits()) {
+			if (uom.getEnumeration() == null && uom.getBridgeAbscissaUnit() == null) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Test
+	public void testWeakRegistration() throws Exception {
+		UnitOfMeasure base = sys.createScalarUOM(UnitType.UNCLASSIFIED, "weakBase", "weakBase", "registration");
+
+		try {
+			sys.setWeakRegistration(true);
+			assertTrue(sys.isWeakRegistration());
+
+			// an anonymous unit is registered while in use
+			UnitOfMeasure power = sys.createPowerUOM(base, 5);
+			String symbol = power.getSymbol();
+			String baseSymbol = power.getBaseSymbol();
+			assertTrue(sys.getUOM(symbol) == power);
+			assertTrue(sys.getBaseUOM(baseSymbol) == power);
+			assertTrue(sys.getRegisteredUnits().contains(power));
+			assertTrue(sys.createPowerUOM(base, 5) == power);
+
+			// named units are still held strongly
+			UnitOfMeasure named = sys.createPowerUOM(UnitType.UNCLASSIFIED, "weakNamed", "weakNamed", null, base, 6);
+			assertTrue(sys.getUOM("weakNamed") == named);
+
+			// and collected when not
+			ReferenceQueue<UnitOfMeasure> queue = new ReferenceQueue<>();
+			WeakReference<UnitOfMeasure> ref = new WeakReference<>(power, queue);
+			power = null;
+			System.gc();
+
+			// all weak references to the unit are cleared together
+			Assume.assumeTrue(queue.remove(5000) == ref);
+			assertTrue(sys.getUOM(symbol) == null);
+			assertTrue(sys.getBaseUOM(baseSymbol) == null);
+		} finally {
+			sys.setWeakRegistration(false);
+		}
+	}
+
+	@Test
+	public void testTenantSystems() throws Exception {
+		MeasurementSystem tenant1 = new MeasurementSystem();
+		MeasurementSystem tenant2 = new MeasurementSystem();
+
+		// pre-defined units are copied into each tenant
+		UnitOfMeasure one = sys.getOne();
+		UnitOfMeasure one1 = tenant1.getOne();
+		assertTrue(one1 != one);
+		assertTrue(one1.getMeasurementSystem() == tenant1);
+		assertTrue(tenant1.getOne() == one1);
+		assertTrue(tenant1.getUOM(one.getSymbol()) == one1);
+		assertTrue(tenant2.getUOM(Unit.METRE) != sys.getUOM(Unit.METRE));
+		assertTrue(tenant2.getUOM(Unit.METRE) != tenant1.getUOM(Unit.METRE));
+		assertTrue(tenant2.getBaseUOM("m") == tenant2.getUOM(Unit.METRE));
+
+		// the same symbol in each tenant
+		UnitOfMeasure pallet1 = tenant1.createScalarUOM(UnitType.UNCLASSIFIED, "pallet", "pallet", "tenant 1");
+		pallet1.setConversion(40d, one);
+		UnitOfMeasure pallet2 = tenant2.createScalarUOM(UnitType.UNCLASSIFIED, "pallet", "pallet", "tenant 2");
+		pallet2.setConversion(60d, one);
+
+		assertTrue(pallet1 != pallet2);
+		assertFalse(pallet1.equals(pallet2));
+		assertTrue(pallet1.getMeasurementSystem() == tenant1);
+		assertTrue(tenant1.getUOM("pallet") == pallet1);
+		assertTrue(tenant2.getUOM("pallet") == pallet2);
+		assertTrue(sys.getUOM("pallet") == null);
+		assertTrue(tenant1.getRegisteredUnits().contains(pallet1));
+		assertFalse(tenant2.getRegisteredUnits().contains(pallet1));
+
+		Quantity q1 = new Quantity(2d, pallet1);
+		assertTrue(isCloseTo(q1.convert(one).getAmount(), 80d, DELTA6));
+		Quantity q2 = new Quantity(2d, pallet2);
+		assertTrue(isCloseTo(q2.convert(one).getAmount(), 120d, DELTA6));
+
+		// products with a pre-defined unit belong to the tenant
+		UnitOfMeasure perSec = pallet1.divide(sys.getSecond());
+		assertTrue(perSec.getMeasurementSystem() == tenant1);
+		assertTrue(pallet1.divide(sys.getSecond()) == perSec);
+		assertFalse(perSec.equals(pallet2.divide(sys.getSecond())));
+
+		// units of two tenants cannot be combined
+		try {
+			pallet1.multiply(pallet2);
+			fail();
+		} catch (Exception e) {
+		}
+
+		// redefining a pre-defined unit only affects its tenant
+		UnitOfMeasure yuan1 = tenant1.getUOM(Unit.YUAN);
+		yuan1.setConversion(0.5d, tenant1.getUOM(Unit.US_DOLLAR));
+		assertTrue(isCloseTo(yuan1.getConversionFactor(tenant1.getUOM(Unit.US_DOLLAR)), 0.5d, DELTA6));
+		assertTrue(tenant2.getUOM(Unit.YUAN) != yuan1);
+		assertTrue(tenant2.getUOM(Unit.YUAN).getAbscissaUnit() == tenant2.getUOM(Unit.YUAN));
+		assertTrue(sys.getUOM(Unit.YUAN).getAbscissaUnit() != tenant1.getUOM(Unit.US_DOLLAR));
+
+		// a custom unit hides a pre-defined one in its own system only
+		UnitOfMeasure metre = tenant2.createScalarUOM(UnitType.LENGTH, "metre", "m", "tenant metre");
+		assertTrue(tenant2.getUOM("m") == metre);
+		assertTrue(tenant1.getUOM("m") == tenant1.getUOM(Unit.METRE));
+	}
+
 	@Test
 	public void testGetUnits() throws Exception {
 		for (UnitType type : UnitType.values()) {
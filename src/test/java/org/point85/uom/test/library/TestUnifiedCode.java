@@ -26,6 +26,7 @@ package org.point85.uom.test.library;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import org.junit.Assume;
 import org.junit.Test;
 import org.point85.uom.Constant;
 import org.point85.uom.Prefix;
@@ -45,8 +46,98 @@ public class TestUnifiedCode extends BaseTest {
 
 	private Gson gson = new Gson();
 
+	// amount, from UCUM expression, to UCUM expression and the expected amount
+	// calculated from the UCUM definitions of the units
+	private static final Object[][] CONVERSIONS = {
+			{ 10.0d, "AU", "[mi_i]", 929558072.6743319d },
+			{ 10.0d, "atm", "[psi]", 146.9594877551345d },
+			{ 10.0d, "[in_i'Hg]", "[psi]", 4.911527202495407d },
+			{ 10.0d, "d", "wk", 1.4285714285714286d },
+			{ 10.0d, "kW.h", "kJ", 36000.0d },
+			{ 10.0d, "h", "s", 36000.0d },
+			{ 10.0d, "[gal_us]", "l", 37.85411784d },
+			{ 2.99792458E+08, "m/s", "[mi_i]/h", 670616629.3843951d },
+			{ 9.80665d, "m/s2", "[ft_i]/s2", 32.17404855643044d },
+			{ 10.0d, "[ft_i]", "[in_i]", 120.0d },
+			{ 10.0d, "[in_i]", "cm", 25.4d },
+			{ 10.0d, "[ft_i].[lbf_av]", "N.m", 13.558179483314003d },
+			{ 10.0d, "[acr_br]", "m2", 40468.56422400001d },
+			{ 10.0d, "[gal_us]", "[gal_br]", 8.326741846289888d },
+			{ 10.0d, "[gal_us]", "cm3", 37854.11784d },
+			{ 10.0d, "[lb_av]", "kg", 4.535923700000001d },
+			{ 10.0d, "N", "[lbf_av]", 2.248089430997105d },
+			{ 10.0d, "cal_th", "J", 41.84d },
+			{ 10.0d, "kcal_th", "[Btu_IT]", 39.656668313909194d },
+			{ 10.0d, "[psi]", "kPa", 68.94757293168361d },
+			{ 10.0d, "[HP]", "kW", 7.456998715822702d },
+			{ 10.0d, "[gr]", "[lb_av]", 0.0014285714285714284d },
+			{ 10.0d, "kg", "[lb_av]", 22.046226218487757d },
+			{ 10.0d, "deg", "rad", 0.17453292519943295d },
+			{ 10.0d, "[kn_br]", "[mi_i]/h", 11.515151515151516d },
+			{ 1.0d, "K", "[degR]", 1.8d },
+			{ 10.0d, "[car_m]", "[oz_av]", 0.07054792389916083d },
+			{ 10.0d, "kW.h", "[Btu_IT]", 34121.41633127942d },
+			{ 10.0d, "Ao", "[in_i]", 3.9370078740157486e-08 },
+			{ 10.0d, "a_j", "wk", 521.7857142857143d },
+			{ 10.0d, "[fth_i]", "m", 18.288d },
+			{ 10.0d, "m2", "[syd_i]", 11.959900463010799d },
+			{ 10.0d, "[cyd_i]", "m3", 7.6455485798400025d },
+			{ 10.0d, "[mil_i]", "mm", 0.254d },
+			{ 10.0d, "[bbl_us]", "m3", 1.58987294928d },
+			{ 10.0d, "[crd_us]", "m3", 36.24556363776001d },
+			{ 10.0d, "m3", "[bu_us]", 283.7759325840175d },
+			{ 10.0d, "[bu_br]", "m3", 0.3636872d },
+			{ 10.0d, "[pnt]", "[in_i]", 0.1388888888888889d },
+			{ 10.0d, "By", "bit", 80.0d },
+			{ 10.0d, "min-1", "Hz", 0.16666666666666666d },
+			{ 10.0d, "t", "[lb_av]", 22046.226218487758d },
+			{ 10.0d, "/min", "Hz", 0.16666666666666666d },
+			{ 10.0d, "ug/mL", "mg/L", 10.0d },
+			{ 10.0d, "mmol{creat}/L", "mol/m3", 10.0d },
+			{ 10.0d, "10*3/uL", "/L", 10000000000.0d }
+	};
+
+	@Test
+	public void testOfflineConversions() throws Exception {
+		for (Object[] conversion : CONVERSIONS) {
+			double amount = (Double) conversion[0];
+			UnitOfMeasure fromUOM = sys.parseUnifiedCode((String) conversion[1]);
+			UnitOfMeasure toUOM = sys.parseUnifiedCode((String) conversion[2]);
+			double expected = (Double) conversion[3];
+
+			double converted = new Quantity(amount, fromUOM).convert(toUOM).getAmount();
+			// relative tolerance, the inch of mercury differs by about 1.0E-05
+			String pair = conversion[1] + " -> " + conversion[2];
+			assertTrue(pair, isCloseTo(converted, expected, Math.abs(expected) * DELTA5));
+		}
+
+		// parsed expressions are cached
+		assertTrue(sys.parseUnifiedCode("[psi]") == sys.getUOM(Unit.PSI));
+		assertTrue(sys.parseUnifiedCode("kg.m/s2") == sys.parseUnifiedCode("kg.m/s2"));
+		assertTrue(sys.getUnifiedCode(Unit.IN_HG).equals("[in_i'Hg]"));
+		assertTrue(sys.getUnifiedCode(Unit.SQUARE_METRE) == null);
+
+		// a power of 10 is not registered
+		UnitOfMeasure thousand = sys.parseUnifiedCode("10*3");
+		assertTrue(isCloseTo(thousand.getConversionFactor(sys.getOne()), 1000.0d, DELTA6));
+		assertTrue(sys.getUOM("10*3") == null);
+
+		String[] invalid = { null, "", "[psi", "m.", "(m", "m)", "{rbc", "[unknown]", "xyz/s", "m+" };
+
+		for (String expression : invalid) {
+			try {
+				sys.parseUnifiedCode(expression);
+				fail(expression);
+			} catch (Exception e) {
+			}
+		}
+	}
+
 	@Test
 	public void runTest() throws Exception {
+		// skipped when the web service cannot be reached
+		Assume.assumeTrue(isServiceAvailable());
+
 		double amount = 10;
 
 		Quantity from = null;
@@ -435,6 +526,15 @@ public class TestUnifiedCode extends BaseTest {
 
 	}
 
+	private boolean isServiceAvailable() {
+		try {
+			String url = BASE_URL + "1/" + FROM + "m/" + TO + "m";
+			return HttpRequest.get(url).connectTimeout(5000).readTimeout(5000).code() == 200;
+		} catch (HttpRequestException e) {
+			return false;
+		}
+	}
+
 	private double wsConvert(double amount, String fromUnifiedSymbol, String toUnifiedSymbol)
 			throws HttpRequestException, Exception {
 		String fromUnit = prep(fromUnifiedSymbol);
@@ -32,6 +32,7 @@ import java.util.Map.Entry;
 
 import org.junit.Test;
 import org.point85.uom.Constant;
+import org.point85.uom.MeasurementSystem;
 import org.point85.uom.Prefix;
 import org.point85.uom.Quantity;
 import org.point85.uom.Unit;
@@ -69,7 +70,51 @@ public class TestUnits extends BaseTest {
 			assertTrue(prefix.getFactor() != 1.0d);
 			assertTrue(prefix.toString().length() > 0);
 			assertTrue(Prefix.fromName(prefixName).equals(prefix));
+			assertTrue(Prefix.fromSymbol(prefix.getSymbol()).equals(prefix));
+			assertTrue(Prefix.fromFactor(prefix.getFactor()).equals(prefix));
 		}
+
+		// relative tolerance for small factors
+		assertTrue(Prefix.fromFactor(1.0E-24 * (1.0d + 1.0E-12)).equals(Prefix.YOCTO));
+		assertTrue(Prefix.fromFactor(1.0E-21).equals(Prefix.ZEPTO));
+		assertTrue(Prefix.fromFactor(1.5E-24) == null);
+		assertTrue(Prefix.fromFactor(1000.001d) == null);
+		assertTrue(Prefix.fromFactor(0.0d) == null);
+		assertTrue(Prefix.fromFactor(-1000.0d) == null);
+		assertTrue(Prefix.fromFactor(Double.NaN) == null);
+		assertTrue(Prefix.fromSymbol("x") == null);
+		assertTrue(Prefix.fromName(null) == null);
+
+		// a new prefix is indexed
+		Prefix myria = new Prefix("myria", "my", 1.0E+04);
+		assertTrue(Prefix.fromName("myria") == myria);
+		assertTrue(Prefix.fromSymbol("my") == myria);
+		assertTrue(Prefix.fromFactor(1.0E+04) == myria);
+		assertTrue(Prefix.getDefinedPrefixes().contains(myria));
+
+		try {
+			Prefix.getDefinedPrefixes().clear();
+			fail();
+		} catch (UnsupportedOperationException e) {
+		}
+	}
+
+	@Test
+	public void testPrefixedUnits() throws Exception {
+		UnitOfMeasure metre = sys.getUOM(Unit.METRE);
+		UnitOfMeasure km = sys.getUOM(Prefix.KILO, metre);
+		assertTrue(km.getSymbol().equals("km"));
+		assertTrue(sys.getUOM(Prefix.KILO, metre) == km);
+		assertTrue(sys.getUOM(Prefix.KILO, Unit.METRE) == km);
+		assertTrue(sys.getUOM(Prefix.MILLI, metre) != km);
+
+		// a cleared cache creates a new unit
+		sys.clearCache();
+		metre = sys.getUOM(Unit.METRE);
+		UnitOfMeasure newKm = sys.getUOM(Prefix.KILO, metre);
+		assertTrue(newKm != km);
+		assertTrue(sys.getUOM("km") == newKm);
+		assertTrue(isCloseTo(newKm.getConversionFactor(metre), 1000d, DELTA6));
 	}
 
 	@Test
@@ -1840,4 +1885,208 @@ public class TestUnits extends BaseTest {
 		sf = minsq.getConversionFactor(p2);
 		assertTrue(sf == 1d);
 	}
+
+	@Test
+	public void testHashAndEquality() throws Exception {
+		UnitOfMeasure metre = sys.getUOM(Unit.METRE);
+		UnitOfMeasure hash1 = sys.createScalarUOM(UnitType.LENGTH, "hash1", "hash1", "hash code");
+
+		// identity
+		assertTrue(hash1.equals(hash1));
+		assertFalse(hash1.equals(null));
+
+		// stable across a conversion change
+		int hashCode = hash1.hashCode();
+		hash1.setConversion(2d, metre);
+		assertTrue(hash1.hashCode() == hashCode);
+
+		// equal conversions
+		UnitOfMeasure hash2 = sys.createScalarUOM(UnitType.LENGTH, "hash2", "hash2", "hash code");
+		hash2.setConversion(2d, metre);
+		assertTrue(hash1.equals(hash2));
+
+		hash2.setConversion(2d, metre, 1d);
+		assertFalse(hash1.equals(hash2));
+
+		// a new symbol is a new hash code
+		UnitOfMeasure hash3 = sys.createScalarUOM(UnitType.LENGTH, "hash3", "hash3", "hash code");
+		hashCode = hash3.hashCode();
+		hash3.setSymbol("hash4");
+		assertFalse(hash3.hashCode() == hashCode);
+		hash3.setSymbol("hash3");
+		assertTrue(hash3.hashCode() == hashCode);
+	}
+
+	@Test
+	public void testReducedFormChange() throws Exception {
+		UnitOfMeasure second = sys.getSecond();
+		UnitOfMeasure red1 = sys.createScalarUOM(UnitType.UNCLASSIFIED, "red1", "red1", "reduction");
+		UnitOfMeasure red2 = sys.createScalarUOM(UnitType.UNCLASSIFIED, "red2", "red2", "reduction");
+		UnitOfMeasure red3 = sys.createScalarUOM(UnitType.UNCLASSIFIED, "red3", "red3", "reduction");
+		red1.setConversion(10d, red2);
+
+		UnitOfMeasure rate = sys.createQuotientUOM(red1, second);
+		UnitOfMeasure rate2 = sys.createQuotientUOM(red2, second);
+		assertTrue(rate.getBaseSymbol().equals("red2/s"));
+		assertTrue(rate.getBaseUnitsOfMeasure().get(red2) == 1);
+		assertTrue(isCloseTo(rate.getConversionFactor(rate2), 10d, DELTA6));
+
+		// redefine a unit that the quotient is composed of
+		red1.setConversion(100d, red3);
+		UnitOfMeasure rate3 = sys.createQuotientUOM(red3, second);
+		assertTrue(rate.getBaseSymbol().equals("red3/s"));
+		assertTrue(rate.getBaseUnitsOfMeasure().get(red3) == 1);
+		assertTrue(isCloseTo(rate.getConversionFactor(rate3), 100d, DELTA6));
+
+		// circular reference
+		red2.setConversion(red3);
+
+		try {
+			red3.setConversion(red2);
+			fail();
+		} catch (Exception e) {
+
+		}
+		// the previous definition is kept
+		assertTrue(red3.getAbscissaUnit().equals(red3));
+		assertTrue(red1.getBaseSymbol().equals("red3"));
+	}
+
+	@Test
+	public void testConversionPath() throws Exception {
+		UnitOfMeasure litre = sys.getUOM(Unit.LITRE);
+		UnitOfMeasure bottle = sys.createScalarUOM(UnitType.VOLUME, "bottle", "btl", "path");
+		bottle.setConversion(0.75d, litre);
+		UnitOfMeasure box = sys.createScalarUOM(UnitType.VOLUME, "box", "box", "path");
+		box.setConversion(12d, bottle);
+		UnitOfMeasure pallet = sys.createScalarUOM(UnitType.VOLUME, "pallet", "plt", "path");
+		pallet.setConversion(40d, box);
+
+		assertTrue(isCloseTo(pallet.getConversionFactor(litre), 360d, DELTA6));
+		assertTrue(isCloseTo(pallet.getConversionFactor(bottle), 480d, DELTA6));
+		assertTrue(isCloseTo(box.getConversionFactor(pallet), 0.025d, DELTA6));
+
+		// redefine a unit in the middle of the path
+		box.setConversion(24d, bottle);
+		assertTrue(isCloseTo(pallet.getConversionFactor(litre), 720d, DELTA6));
+		assertTrue(isCloseTo(new Quantity(1d, pallet).convert(bottle).getAmount(), 960d, DELTA6));
+
+		// and at the end of the path
+		bottle.setConversion(1d, litre);
+		assertTrue(isCloseTo(pallet.getConversionFactor(litre), 960d, DELTA6));
+		assertTrue(isCloseTo(new Quantity(2d, box).convert(litre).getAmount(), 48d, DELTA6));
+	}
+
+	@Test
+	public void testInternedResults() throws Exception {
+		UnitOfMeasure metre = sys.getUOM(Unit.METRE);
+		UnitOfMeasure second = sys.getSecond();
+
+		// the same operation returns the same unit
+		UnitOfMeasure velocity = metre.divide(second);
+		assertTrue(velocity == metre.divide(second));
+		assertTrue(metre.multiply(second) == metre.multiply(second));
+		assertTrue(velocity != metre.multiply(second));
+		assertTrue(second.invert() == second.invert());
+
+		// redefining an operand creates a new result
+		UnitOfMeasure int1 = sys.createScalarUOM(UnitType.UNCLASSIFIED, "int1", "int1", "interned");
+		UnitOfMeasure rate = int1.divide(second);
+		assertTrue(rate == int1.divide(second));
+		assertTrue(rate.getBaseSymbol().equals("int1/s"));
+
+		int1.setConversion(2.0d, metre);
+		UnitOfMeasure newRate = int1.divide(second);
+		assertTrue(newRate != rate);
+		assertTrue(isCloseTo(newRate.getConversionFactor(velocity), 2.0d, DELTA6));
+	}
+
+	@Test
+	public void testIntermediateSymbols() throws Exception {
+		UnitOfMeasure long1 = sys.createScalarUOM(UnitType.UNCLASSIFIED, "long1", "longSymbol1", "intermediate");
+		UnitOfMeasure long2 = sys.createScalarUOM(UnitType.UNCLASSIFIED, "long2", "longSymbol2", "intermediate");
+
+		UnitOfMeasure product = long1.multiply(long2);
+		assertTrue(product.getSymbol().length() < 16);
+
+		// registering an unrelated unit keeps the cached result
+		sys.createScalarUOM(UnitType.UNCLASSIFIED, "long3", "longSymbol3", "intermediate");
+		UnitOfMeasure product2 = long1.multiply(long2);
+		assertTrue(product2 == product);
+
+		// a renamed result is no longer shared
+		String symbol = product.getSymbol();
+		product.setSymbol("long1long2");
+		product.setName("long product");
+		assertTrue(product.getSymbol().equals("long1long2"));
+		assertTrue(product.getName().equals("long product"));
+
+		UnitOfMeasure product4 = long1.multiply(long2);
+		assertTrue(product4 != product);
+		assertTrue(product4.getSymbol().equals(symbol));
+		assertTrue(long1.multiply(long2) == product4);
+
+		// as is a redefined one
+		product4.setConversion(2d, sys.getOne());
+		assertTrue(long1.multiply(long2) != product4);
+		assertTrue(long1.multiply(long2).getSymbol().equals(symbol));
+
+		// registering a unit for the base symbol replaces the cached result
+		UnitOfMeasure named = sys.createProductUOM(UnitType.UNCLASSIFIED, "long12", "long12", "intermediate", long1,
+				long2);
+		UnitOfMeasure product3 = long1.multiply(long2);
+		assertTrue(product3 != product4);
+		assertTrue(product3.getAbscissaUnit() == named);
+
+		// different dimension
+		assertFalse(long1.divide(long2).getSymbol().equals(product.getSymbol()));
+	}
+
+	@Test
+	public void testParseExpression() throws Exception {
+		UnitOfMeasure newton = sys.getUOM(Unit.NEWTON);
+
+		UnitOfMeasure uom = sys.parseUOM("kg\u00B7m/s\u00B2");
+		assertTrue(isCloseTo(uom.getConversionFactor(newton), 1.0d, DELTA6));
+		assertTrue(sys.parseUOM("kg\u00B7m/s\u00B2") == uom);
+
+		uom = sys.parseUOM("(kg * m) / (s^2)");
+		assertTrue(isCloseTo(uom.getConversionFactor(newton), 1.0d, DELTA6));
+
+		// registered units
+		assertTrue(sys.parseUOM("N*m") == sys.getUOM(Unit.NEWTON_METRE));
+		assertTrue(sys.parseUOM("m/s^2") == sys.getUOM(Unit.METRE_PER_SEC_SQUARED));
+		assertTrue(sys.parseUOM("us fl oz") == sys.getUOM(Unit.US_FLUID_OUNCE));
+
+		// prefixes
+		uom = sys.parseUOM("km/hr");
+		Quantity q = new Quantity(36.0d, uom).convert(sys.getUOM(Unit.METRE_PER_SEC));
+		assertTrue(isCloseTo(q.getAmount(), 10.0d, DELTA6));
+		assertTrue(isCloseTo(sys.parseUOM("mm").getConversionFactor(sys.getUOM(Unit.METRE)), 0.001d, DELTA6));
+		assertTrue(isCloseTo(sys.parseUOM("dam").getConversionFactor(sys.getUOM(Unit.METRE)), 10.0d, DELTA6));
+
+		// powers
+		assertTrue(isCloseTo(sys.parseUOM("1/s").getConversionFactor(sys.getUOM(Unit.HERTZ)), 1.0d, DELTA6));
+		assertTrue(isCloseTo(sys.parseUOM("s^-1").getConversionFactor(sys.getUOM(Unit.HERTZ)), 1.0d, DELTA6));
+		assertTrue(isCloseTo(sys.parseUOM("ft\u00B3").getConversionFactor(sys.getUOM(Unit.CUBIC_FOOT)), 1.0d, DELTA6));
+
+		String[] invalid = { null, " ", "kg/", "(m", "m)", "m^x", "m**s", "notAUnit", "m/notAUnit" };
+
+		for (String expression : invalid) {
+			try {
+				sys.parseUOM(expression);
+				fail(expression);
+			} catch (Exception e) {
+			}
+		}
+
+		// parsing and simplifying create only the units that are found
+		MeasurementSystem tenant = new MeasurementSystem();
+		uom = tenant.parseUOM("us fl oz/hr");
+		assertTrue(uom.getMultiplier() == tenant.getUOM(Unit.US_FLUID_OUNCE));
+
+		UnitOfMeasure torque = tenant.getUOM(Unit.NEWTON).multiply(tenant.getUOM(Unit.METRE));
+		assertTrue(new Quantity(1.0d, torque).simplify().getUOM() == tenant.getUOM(Unit.JOULE));
+		assertTrue(tenant.getRegisteredUnits().size() < Unit.values().length / 2);
+	}
 }